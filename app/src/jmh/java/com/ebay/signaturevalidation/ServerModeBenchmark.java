@@ -0,0 +1,105 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of a signed request to {@code /verifysignature} over a kept-alive local connection, served either by
+ * the Spring Boot application or by the standalone {@link VerificationServer}. Both run in the benchmark JVM with the
+ * same keys and verification settings, so the difference is the cost of the server and Spring MVC around the
+ * verification. Throughput is in requests per millisecond; the sampled latencies give the percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class ServerModeBenchmark {
+
+    @Param({"spring", "standalone"})
+    private String mode;
+
+    @Param({"0", "1024", "65536"})
+    private int bodySize;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ConfigurableApplicationContext springContext;
+    private CryptoExecutor cryptoExecutor;
+    private VerificationServer server;
+    private HttpRequest request;
+
+    @Setup
+    public void setup() throws IOException, SignatureException {
+        int port;
+        if (mode.equals("spring")) {
+            springContext = SpringApplication.run(Application.class, "--server.port=0");
+            port = ((WebServerApplicationContext) springContext).getWebServer().getPort();
+        } else {
+            cryptoExecutor = new CryptoExecutor(0, 1024);
+            VerificationService verificationService = VerificationService.builder(new KeypairService("Ed25519"), cryptoExecutor)
+                    .build();
+            server = new VerificationServer(verificationService, new InetSocketAddress("localhost", 0),
+                    Runtime.getRuntime().availableProcessors() * 2);
+            server.start();
+            port = server.getPort();
+        }
+
+        URI uri = URI.create("http://localhost:" + port + "/verifysignature");
+        byte[] body = new byte[bodySize];
+        new Random(bodySize).nextBytes(body);
+        String method = bodySize > 0 ? "POST" : "GET";
+        Map<String, List<String>> headers = new HashMap<>();
+        new SignatureService(new KeypairService("Ed25519")).signMessage(SignableMessage.of(method, uri, headers), body);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .method(method, bodySize > 0 ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+        headers.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        request = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (springContext != null) {
+            springContext.close();
+        }
+        if (server != null) {
+            server.stop();
+            cryptoExecutor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int verify() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Verification failed with status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
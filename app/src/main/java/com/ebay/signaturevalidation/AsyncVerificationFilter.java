@@ -0,0 +1,113 @@
+package com.ebay.signaturevalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Verifies request signatures on the {@link CryptoExecutor} instead of the servlet container's request thread, using
+ * servlet async processing.
+ * <p>
+ * The body is read and hashed on the request thread, which is then released while the signature checks wait in the
+ * crypto pool's bounded queue. A verified request is dispatched again, marked with {@link #VERIFIED_ATTRIBUTE} so that
+ * {@link VerificationInterceptor} lets it through; a rejected one gets a 403 with the reason. When the queue is full the
+ * request is shed at once with a 503 and a Retry-After header, rather than waiting behind work that is already late.
+ * <p>
+ * Disabled by default; set {@code signature.verification.async.enabled=true} to use it in place of the interceptor's
+ * verification on the request thread.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class AsyncVerificationFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute set on requests whose signatures have been verified.
+     */
+    public static final String VERIFIED_ATTRIBUTE = AsyncVerificationFilter.class.getName() + ".VERIFIED";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final VerificationService verificationService;
+    private final CryptoExecutor cryptoExecutor;
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+
+    private final Logger logger = LoggerFactory.getLogger(AsyncVerificationFilter.class.getName());
+
+    public AsyncVerificationFilter(VerificationService verificationService,
+                                   CryptoExecutor cryptoExecutor,
+                                   @Value("${signature.verification.async.enabled:false}") boolean enabled,
+                                   @Value("${signature.verification.async.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.verificationService = verificationService;
+        this.cryptoExecutor = cryptoExecutor;
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Batch records are verified by the batch endpoint itself, and actuator endpoints are not signed.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !enabled || SignatureController.BATCH_PATH.equals(path) || path.startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        MessageComponents message = SpringMessages.received(request);
+        BodyDigest bodyDigest = new BodyDigest(message.getHeader("content-digest"));
+        InputStream body = request.getInputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            bodyDigest.update(buffer, 0, read);
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        try {
+            cryptoExecutor.submit(() -> {
+                verificationService.verifyMessage(bodyDigest, message);
+                return null;
+            }).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    request.setAttribute(VERIFIED_ATTRIBUTE, Boolean.TRUE);
+                    asyncContext.dispatch();
+                } else {
+                    reject(asyncContext, response, ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Verification queue full, rejecting {} {}", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            asyncContext.complete();
+        }
+    }
+
+    private void reject(AsyncContext asyncContext, HttpServletResponse response, Throwable ex) {
+        try {
+            logger.info("Signature verification failed: {}", ex.getMessage());
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.getWriter().write(String.valueOf(ex.getMessage()));
+        } catch (IOException | IllegalStateException writeEx) {
+            logger.warn("Error writing verification failure: {}", writeEx.getMessage());
+        } finally {
+            asyncContext.complete();
+        }
+    }
+}
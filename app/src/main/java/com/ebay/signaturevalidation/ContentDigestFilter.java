@@ -0,0 +1,87 @@
+package com.ebay.signaturevalidation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Wraps incoming requests in a {@link ContentDigestRequestWrapper} so that {@link VerificationInterceptor} can hash
+ * the body while it streams in and the controller can still read it afterwards.
+ * <p>
+ * Runs just before {@link AsyncVerificationFilter}. If the request goes async, the wrapper is closed when the async
+ * processing ends instead of when this filter returns, since the body is replayed after the async dispatch.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class ContentDigestFilter extends OncePerRequestFilter {
+
+    private final int memoryThreshold;
+
+    public ContentDigestFilter(@Value("${signature.verification.body-memory-threshold:65536}") int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Batch bodies are read once, as they stream in, and are not verified themselves.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return SignatureController.BATCH_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ContentDigestRequestWrapper wrapper = new ContentDigestRequestWrapper(request, memoryThreshold);
+        boolean async = false;
+        try {
+            filterChain.doFilter(wrapper, response);
+            if (wrapper.isAsyncStarted()) {
+                wrapper.getAsyncContext().addListener(new CloseOnCompletion(wrapper));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                wrapper.close();
+            }
+        }
+    }
+
+    private static final class CloseOnCompletion implements AsyncListener {
+        private final ContentDigestRequestWrapper wrapper;
+
+        private CloseOnCompletion(ContentDigestRequestWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            wrapper.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        /**
+         * Async processing restarted by the handler, for example for a DeferredResult, replaces the listeners.
+         */
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.ebay.signaturevalidation;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Request wrapper that lets the body be read twice: once by the verification, which hashes it as it streams by, and
+ * once more by the controller.
+ * <p>
+ * The first stream handed out copies the raw bytes into a replay buffer while they are read. The buffer stays in memory
+ * up to {@code memoryThreshold} bytes and spills to a temporary file beyond that, so heap usage per request does not
+ * grow with the payload size. Once the original stream has been consumed, every later call to
+ * {@link #getInputStream()} replays the buffered bytes.
+ * <p>
+ * Both streams support non-blocking reads. A listener on the original stream is notified as its data arrives; a
+ * listener on a replayed stream is called once, since all of its data is available.
+ */
+public class ContentDigestRequestWrapper extends HttpServletRequestWrapper implements Closeable {
+
+    private final DeferredFileOutputStream replayBuffer;
+    private TeeInputStream teeInputStream;
+    private boolean consumed;
+
+    public ContentDigestRequestWrapper(HttpServletRequest request, int memoryThreshold) throws IOException {
+        super(request);
+        this.replayBuffer = DeferredFileOutputStream.builder()
+                .setThreshold(memoryThreshold)
+                .setPrefix("signature-body")
+                .setSuffix(".tmp")
+                .get();
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (!consumed && teeInputStream == null) {
+            teeInputStream = new TeeInputStream(super.getInputStream());
+            return teeInputStream;
+        }
+
+        drain();
+        return new ReplayInputStream(replayBuffer.toInputStream());
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    /**
+     * Deletes the temporary file, if the body was large enough to spill to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        replayBuffer.close();
+        if (!replayBuffer.isInMemory()) {
+            Files.deleteIfExists(replayBuffer.getPath());
+        }
+    }
+
+    private void drain() throws IOException {
+        if (consumed) {
+            return;
+        }
+        if (teeInputStream == null) {
+            teeInputStream = new TeeInputStream(super.getInputStream());
+        }
+
+        byte[] buffer = new byte[8192];
+        while (teeInputStream.read(buffer, 0, buffer.length) != -1) {
+            // copied into the replay buffer by the tee
+        }
+    }
+
+    private void complete() throws IOException {
+        consumed = true;
+        replayBuffer.close();
+    }
+
+    private class TeeInputStream extends ServletInputStream {
+        private final ServletInputStream source;
+
+        private TeeInputStream(ServletInputStream source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (consumed) {
+                return -1;
+            }
+            int b = source.read();
+            if (b == -1) {
+                complete();
+            } else {
+                replayBuffer.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (consumed) {
+                return -1;
+            }
+            int read = source.read(b, off, len);
+            if (read == -1) {
+                complete();
+            } else {
+                replayBuffer.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return consumed;
+        }
+
+        @Override
+        public boolean isReady() {
+            return consumed || source.isReady();
+        }
+
+        /**
+         * Reads stay non-blocking: the listener is notified by the original stream and reads through this one, which
+         * copies what it reads into the replay buffer.
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            source.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    readListener.onDataAvailable();
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    complete();
+                    readListener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+    }
+
+    private class ReplayInputStream extends ServletInputStream {
+        private final InputStream source;
+        private boolean finished;
+        private boolean listening;
+
+        private ReplayInputStream(InputStream source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = source.read();
+            finished = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = source.read(b, off, len);
+            finished = read == -1;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /**
+         * The replayed body is already buffered, so it is always ready: the listener is called once on a container
+         * thread to read all of it, then told that all data has been read.
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (!isAsyncStarted()) {
+                throw new IllegalStateException("Non-blocking reads require an asynchronous request");
+            }
+            if (listening) {
+                throw new IllegalStateException("A ReadListener has already been set");
+            }
+            listening = true;
+            getAsyncContext().start(() -> {
+                try {
+                    readListener.onDataAvailable();
+                    if (finished) {
+                        readListener.onAllDataRead();
+                    }
+                } catch (Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+    }
+}
@@ -16,6 +16,8 @@ public class InterceptorConfiguration implements WebMvcConfigurer {
 
 
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(verificationInterceptor);
+        // Actuator endpoints such as /actuator/prometheus are scraped without signatures
+        registry.addInterceptor(verificationInterceptor)
+                .excludePathPatterns(SignatureController.BATCH_PATH, "/actuator/**");
     }
 }
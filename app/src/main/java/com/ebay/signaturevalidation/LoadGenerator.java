@@ -0,0 +1,417 @@
+package com.ebay.signaturevalidation;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Loads the whole signed round trip, client signing plus server verification, and prints the throughput, the errors
+ * and the latency percentiles of each kind of request.
+ * <p>
+ * Requests are signed by {@link SignatureInterceptor} on a {@link RestTemplate} over a pooled Apache HttpClient, with
+ * one kept-alive connection per concurrent sender. Without {@code --url}, the application is started in the same JVM
+ * on a free port and loaded through its own signing service. Run it with:
+ * <pre>
+ * mvn install -DskipTests
+ * mvn -pl app exec:java -Dexec.mainClass=com.ebay.signaturevalidation.LoadGenerator \
+ *     -Dexec.args="--concurrency 8 --duration 60 --mix GET=1,POST=3 --body-sizes 1024,65536"
+ * </pre>
+ * With a fixed rate, request latency is measured from the time each request was scheduled to start, so a stall is
+ * not hidden by the requests that queue up behind it. Every request body is distinct, so a server with replay
+ * protection, such as the in-process application with {@code --replay-max-age}, accepts each request once.
+ */
+public final class LoadGenerator {
+
+    private static final String USAGE = "Usage: LoadGenerator [--url URL] [--concurrency N] [--duration SECONDS]"
+            + " [--warmup SECONDS] [--rate REQUESTS_PER_SECOND] [--mix GET=1,POST=1] [--body-sizes 1024,65536]"
+            + " [--algorithm Ed25519|RSA] [--keys FOLDER] [--replay-max-age SECONDS]";
+    private static final int MAX_ERROR_LENGTH = 120;
+
+    private final RestTemplate client;
+    private final URI uri;
+    private final List<RequestKind> mix;
+    private final double totalWeight;
+    private final int concurrency;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    /**
+     * @param client the signing client; see {@link #signingClient}
+     * @param mix the kinds of request to send, picked at random in proportion to their weights
+     * @param rate requests per second across all senders, or 0 to send as fast as the responses come back
+     */
+    public LoadGenerator(RestTemplate client, URI uri, List<RequestKind> mix, int concurrency, double rate,
+                         Duration warmup, Duration duration) {
+        this.client = client;
+        this.uri = uri;
+        this.mix = mix;
+        this.totalWeight = mix.stream().mapToDouble(RequestKind::getWeight).sum();
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int concurrency = 4;
+        long durationSeconds = 30;
+        long warmupSeconds = 5;
+        double rate = 0;
+        String mix = "GET=1,POST=1";
+        String bodySizes = "1024";
+        String algorithm = "Ed25519";
+        String keysFolder = "keys/";
+        long replayMaxAge = 0;
+        List<RequestKind> requestKinds = null;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--url":
+                        url = value;
+                        break;
+                    case "--concurrency":
+                        concurrency = Integer.parseInt(value);
+                        break;
+                    case "--duration":
+                        durationSeconds = Long.parseLong(value);
+                        break;
+                    case "--warmup":
+                        warmupSeconds = Long.parseLong(value);
+                        break;
+                    case "--rate":
+                        rate = Double.parseDouble(value);
+                        break;
+                    case "--mix":
+                        mix = value;
+                        break;
+                    case "--body-sizes":
+                        bodySizes = value;
+                        break;
+                    case "--algorithm":
+                        algorithm = value;
+                        break;
+                    case "--keys":
+                        keysFolder = value;
+                        break;
+                    case "--replay-max-age":
+                        replayMaxAge = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            requestKinds = parseMix(mix, bodySizes);
+            if (replayMaxAge > 0 && url != null) {
+                throw new IllegalArgumentException("--replay-max-age applies to the in-process application, not to --url");
+            }
+            if (replayMaxAge > 0 && requestKinds.stream().anyMatch(kind -> kind.bodySize == 0)) {
+                // The signature covers nothing else that differs between two such requests signed in the same second
+                throw new IllegalArgumentException("--replay-max-age needs requests with a body");
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        ConfigurableApplicationContext context = null;
+        HttpComponentsClientHttpRequestFactory requestFactory = pooledRequestFactory(concurrency);
+        try {
+            SignatureService signatureService;
+            if (url == null) {
+                List<String> appArgs = new ArrayList<>(List.of("--server.port=0"));
+                if (replayMaxAge > 0) {
+                    appArgs.add("--signature.verification.replay-protection.enabled=true");
+                    appArgs.add("--signature.verification.replay-protection.max-age-seconds=" + replayMaxAge);
+                }
+                context = SpringApplication.run(Application.class, appArgs.toArray(new String[0]));
+                url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/verifysignature";
+                signatureService = context.getBean(SignatureService.class);
+            } else {
+                signatureService = new SignatureService(new KeypairService(algorithm, keysFolder));
+            }
+
+            new LoadGenerator(signingClient(requestFactory, signatureService), URI.create(url), requestKinds, concurrency,
+                    rate, Duration.ofSeconds(warmupSeconds), Duration.ofSeconds(durationSeconds)).run(System.out);
+        } finally {
+            requestFactory.destroy();
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * A request factory over an Apache HttpClient that keeps up to maxConnections connections alive for reuse.
+     */
+    public static HttpComponentsClientHttpRequestFactory pooledRequestFactory(int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build());
+    }
+
+    /**
+     * A RestTemplate that signs every request, the way {@code restTemplateWithSignature} does.
+     */
+    public static RestTemplate signingClient(HttpComponentsClientHttpRequestFactory requestFactory, SignatureService signatureService) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new SignatureInterceptor(signatureService));
+        return restTemplate;
+    }
+
+    /**
+     * Parses a request mix such as {@code GET=1,POST=3}. The weight of POST is shared evenly between the body sizes.
+     */
+    public static List<RequestKind> parseMix(String mix, String bodySizes) {
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : bodySizes.split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+
+        List<RequestKind> kinds = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid request mix entry " + entry + ", expected METHOD=WEIGHT");
+            }
+            HttpMethod method = HttpMethod.resolve(parts[0].trim().toUpperCase());
+            if (method == null) {
+                throw new IllegalArgumentException("Unknown method " + parts[0]);
+            }
+            double weight = Double.parseDouble(parts[1].trim());
+            if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.DELETE) {
+                kinds.add(new RequestKind(method, 0, weight));
+            } else {
+                for (int size : sizes) {
+                    kinds.add(new RequestKind(method, size, weight / sizes.size()));
+                }
+            }
+        }
+        if (kinds.isEmpty()) {
+            throw new IllegalArgumentException("Empty request mix");
+        }
+        return kinds;
+    }
+
+    /**
+     * Runs the warmup and the measured period and prints the report.
+     */
+    public void run(PrintStream out) throws Exception {
+        if (!warmup.isZero()) {
+            load(warmup.toNanos(), 0);
+        }
+        recording = true;
+        long start = System.nanoTime();
+        load(duration.toNanos(), rate);
+        long elapsed = System.nanoTime() - start;
+        recording = false;
+        print(out, elapsed);
+    }
+
+    private void load(long durationNanos, double rate) throws Exception {
+        AtomicLong next = new AtomicLong();
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> workers = new ArrayList<>(concurrency);
+            for (int t = 0; t < concurrency; t++) {
+                workers.add(executor.submit(() -> {
+                    while (true) {
+                        long scheduled = start + next.getAndIncrement() * interval;
+                        long now = System.nanoTime();
+                        if (interval > 0 ? scheduled >= end : now >= end) {
+                            return null;
+                        }
+                        while (interval > 0 && (now = System.nanoTime()) < scheduled) {
+                            LockSupport.parkNanos(scheduled - now);
+                        }
+                        sendOne(pick(), interval > 0 ? scheduled : System.nanoTime());
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RequestKind pick() {
+        double r = ThreadLocalRandom.current().nextDouble(totalWeight);
+        for (RequestKind kind : mix) {
+            r -= kind.getWeight();
+            if (r < 0) {
+                return kind;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private void sendOne(RequestKind kind, long start) {
+        String error = null;
+        try {
+            client.exchange(uri, kind.getMethod(), kind.entity(), String.class);
+        } catch (HttpStatusCodeException ex) {
+            error = "HTTP " + ex.getRawStatusCode() + ": " + ex.getResponseBodyAsString();
+        } catch (RestClientException ex) {
+            error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        }
+
+        if (!recording) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        latency.recordValue(elapsed);
+        kind.latency.recordValue(elapsed);
+        if (error == null) {
+            succeeded.increment();
+        } else {
+            failed.increment();
+            String key = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) + "..." : error;
+            errors.computeIfAbsent(key, message -> new LongAdder()).increment();
+        }
+    }
+
+    private void print(PrintStream out, long elapsedNanos) {
+        long total = succeeded.sum() + failed.sum();
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Sent %d requests to %s on %d connections in %.3f s: %.1f requests/s (target: %s)%n",
+                total, uri, concurrency, seconds, total / seconds, rate > 0 ? String.format("%.1f/s", rate) : "max");
+        out.printf("Succeeded: %d, failed: %d%n", succeeded.sum(), failed.sum());
+        out.println();
+
+        out.printf("%-20s %10s %10s %10s %10s %10s %10s %10s%n", "latency (ms)", "count", "mean", "p50", "p90", "p99", "p99.9", "max");
+        printHistogram(out, "all", latency);
+        for (RequestKind kind : mix) {
+            printHistogram(out, kind.toString(), kind.latency);
+        }
+
+        if (!errors.isEmpty()) {
+            out.println();
+            out.println("Errors:");
+            errors.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                    .limit(10)
+                    .forEach(e -> out.printf("%10d  %s%n", e.getValue().sum(), e.getKey()));
+        }
+    }
+
+    private static void printHistogram(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-20s %10d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                histogram.getMean() / 1e6,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6);
+    }
+
+    /**
+     * One kind of request in the mix: a method and, for methods with a body, a body of random bytes of a fixed size
+     * whose first bytes number the request.
+     */
+    public static final class RequestKind {
+        private final HttpMethod method;
+        private final int bodySize;
+        private final double weight;
+        private final HttpEntity<byte[]> entity;
+        private final AtomicLong sequence = new AtomicLong();
+        private final Histogram latency = new ConcurrentHistogram(3);
+
+        public RequestKind(HttpMethod method, int bodySize, double weight) {
+            this.method = method;
+            this.bodySize = bodySize;
+            this.weight = weight;
+
+            HttpHeaders headers = new HttpHeaders();
+            if (bodySize > 0) {
+                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                byte[] body = new byte[bodySize];
+                new Random(bodySize).nextBytes(body);
+                this.entity = new HttpEntity<>(body, headers);
+            } else {
+                this.entity = new HttpEntity<>(headers);
+            }
+        }
+
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        /**
+         * A new entity for each request, since signing adds headers to it, with a body of its own so that no two
+         * requests have the same signature.
+         */
+        private HttpEntity<byte[]> entity() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(entity.getHeaders());
+            byte[] body = entity.getBody();
+            if (body != null) {
+                body = body.clone();
+                long number = sequence.getAndIncrement();
+                for (int i = 0; i < Math.min(Long.BYTES, body.length); i++) {
+                    body[i] = (byte) (number >>> (8 * i));
+                }
+            }
+            return new HttpEntity<>(body, headers);
+        }
+
+        @Override
+        public String toString() {
+            return bodySize > 0 ? method + " " + bodySize + " B" : method.toString();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.ebay.signaturevalidation;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Signs the responses of the application, with a signature covering @status, Content-Digest and x-ebay-signature-key.
+ * <p>
+ * The signature headers have to be sent before the body, but cover its digest. The body written by the handler is
+ * therefore hashed in the same pass that spools it into a buffer, which stays in memory up to {@code memoryThreshold}
+ * bytes and spills to a temporary file beyond that, as {@link SigningClientHttpRequestFactory} does for requests. Once
+ * the handler is done the response is signed and the spooled body is streamed to the client, so a large response never
+ * sits in memory as a whole.
+ * <p>
+ * Disabled by default; set {@code signature.signing.responses.enabled=true} to use it. It runs inside
+ * {@link AsyncVerificationFilter}, so the responses that filter writes itself (403 and 503) are not signed, and neither
+ * are error pages rendered after {@code sendError}, or bodies the handler writes after starting async processing
+ * instead of in an async dispatch, such as with a {@link WriteListener}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ResponseSigningFilter extends OncePerRequestFilter {
+
+    private final SignatureService signatureService;
+    private final boolean enabled;
+    private final int memoryThreshold;
+
+    private final Logger logger = LoggerFactory.getLogger(ResponseSigningFilter.class.getName());
+
+    public ResponseSigningFilter(SignatureService signatureService,
+                                 @Value("${signature.signing.responses.enabled:false}") boolean enabled,
+                                 @Value("${signature.signing.body-memory-threshold:65536}") int memoryThreshold) {
+        this.signatureService = signatureService;
+        this.enabled = enabled;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Batch results are streamed as they are verified, and actuator endpoints are not signed.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !enabled || SignatureController.BATCH_PATH.equals(path) || path.startsWith("/actuator/");
+    }
+
+    /**
+     * Requests verified by {@link AsyncVerificationFilter} reach the handler in an async dispatch.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SigningResponseWrapper wrapper = new SigningResponseWrapper(request, response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (request.isAsyncStarted()) {
+                // The handler answers in a later async dispatch, which is signed on its own
+                wrapper.sendUnsigned();
+            } else {
+                wrapper.sign(request);
+            }
+        } finally {
+            wrapper.deleteSpool();
+        }
+    }
+
+    /**
+     * Holds back the body and headers written by the handler until the response is signed. A response that is written
+     * asynchronously is not signed: from then on, writes pass straight through to the response.
+     */
+    private class SigningResponseWrapper extends HttpServletResponseWrapper {
+        private final HttpServletRequest request;
+        private boolean passThrough;
+        private DeferredFileOutputStream spool;
+        private MessageDigest digest;
+        private long length;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean committed;
+
+        private SigningResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            if (outputStream == null) {
+                outputStream = new SpoolOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(new SpoolOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        /**
+         * Flushing would commit the response before it is signed; the spooled body is sent once signed.
+         */
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (passThrough) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return committed || super.isCommitted();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            try {
+                deleteSpool();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Error discarding response body: " + ex.getMessage(), ex);
+            }
+            spool = null;
+            digest = null;
+            length = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            resetBuffer();
+        }
+
+        /**
+         * The length is set from the spooled body when the response is sent.
+         */
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        void sign(HttpServletRequest request) throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (super.isCommitted()) {
+                logger.warn("Response to {} {} was committed before it could be signed", request.getMethod(), request.getRequestURI());
+                return;
+            }
+            try {
+                byte[] bodyDigest = length > 0 ? digest.digest() : null;
+                signatureService.signDigestedResponse(SpringMessages.response(request, (HttpServletResponse) getResponse()), bodyDigest);
+            } catch (SignatureException ex) {
+                throw new IOException("Error signing response: " + ex.getMessage(), ex);
+            }
+            sendBody();
+        }
+
+        /**
+         * Sends what has been spooled so far and lets later writes through, since their length is not known.
+         */
+        void sendUnsigned() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (passThrough) {
+                return;
+            }
+            passThrough = true;
+            committed = true;
+            if (length > 0) {
+                spool.close();
+                try (InputStream body = spool.toInputStream()) {
+                    body.transferTo(getResponse().getOutputStream());
+                }
+            }
+        }
+
+        private void sendBody() throws IOException {
+            committed = true;
+            getResponse().setContentLengthLong(length);
+            if (length > 0) {
+                spool.close();
+                try (InputStream body = spool.toInputStream()) {
+                    body.transferTo(getResponse().getOutputStream());
+                }
+            }
+            getResponse().flushBuffer();
+        }
+
+        void deleteSpool() throws IOException {
+            if (spool != null) {
+                spool.close();
+                if (!spool.isInMemory()) {
+                    Files.deleteIfExists(spool.getPath());
+                }
+            }
+        }
+
+        private void write(int b) throws IOException {
+            if (passThrough) {
+                getResponse().getOutputStream().write(b);
+                return;
+            }
+            startSpool();
+            digest.update((byte) b);
+            spool.write(b);
+            length++;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            if (passThrough) {
+                getResponse().getOutputStream().write(b, off, len);
+                return;
+            }
+            startSpool();
+            digest.update(b, off, len);
+            spool.write(b, off, len);
+            length += len;
+        }
+
+        private void startSpool() throws IOException {
+            if (spool == null) {
+                try {
+                    digest = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new IOException("Error creating message digest: " + ex.getMessage(), ex);
+                }
+                spool = DeferredFileOutputStream.builder()
+                        .setThreshold(memoryThreshold)
+                        .setPrefix("signature-response")
+                        .setSuffix(".tmp")
+                        .get();
+            }
+        }
+
+        private class SpoolOutputStream extends ServletOutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                SigningResponseWrapper.this.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                SigningResponseWrapper.this.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                if (!passThrough) {
+                    return true;
+                }
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException ex) {
+                    return false;
+                }
+            }
+
+            /**
+             * Non-blocking writes reach the client as they are made, so the response is sent unsigned.
+             */
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                if (!request.isAsyncStarted()) {
+                    throw new IllegalStateException("Non-blocking writes require an asynchronous request");
+                }
+                try {
+                    sendUnsigned();
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Error sending response: " + ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.ebay.signaturevalidation;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.RestTemplate;
 
@@ -12,9 +14,11 @@ import java.util.List;
 @Configuration
 public class RestTemplateConfig {
     private final SignatureInterceptor signatureInterceptor;
+    private final SignatureService signatureService;
 
-    public RestTemplateConfig(SignatureInterceptor signatureInterceptor) {
+    public RestTemplateConfig(SignatureInterceptor signatureInterceptor, SignatureService signatureService) {
         this.signatureInterceptor = signatureInterceptor;
+        this.signatureService = signatureService;
     }
 
     @Bean
@@ -29,4 +33,16 @@ public class RestTemplateConfig {
         restTemplate.setInterceptors(interceptors);
         return restTemplate;
     }
+
+    /**
+     * RestTemplate for large uploads: the body is streamed through {@link SigningClientHttpRequestFactory} instead of
+     * being buffered on the heap for {@link SignatureInterceptor}.
+     */
+    @Bean
+    public RestTemplate restTemplateWithStreamingSignature(@Value("${signature.signing.body-memory-threshold:65536}") int memoryThreshold) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setBufferRequestBody(false);
+
+        return new RestTemplate(new SigningClientHttpRequestFactory(requestFactory, signatureService, memoryThreshold));
+    }
 }
@@ -0,0 +1,71 @@
+package com.ebay.signaturevalidation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the signing and verification services of the signature core from the application properties.
+ */
+@Configuration
+public class SignatureConfiguration {
+
+    @Bean
+    public KeypairService keypairService(@Value("${signature.algorithm:Ed25519}") String algorithm,
+                                         @Value("${signature.keys.folder:keys/}") String keysFolder) throws SignatureException {
+        return new KeypairService(algorithm, keysFolder);
+    }
+
+    @Bean
+    public SignatureService signatureService(KeypairService keypairService) throws SignatureException {
+        return new SignatureService(keypairService);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public CryptoExecutor cryptoExecutor(@Value("${signature.crypto.threads:0}") int threads,
+                                         @Value("${signature.crypto.queue-capacity:1024}") int queueCapacity) {
+        return new CryptoExecutor(threads, queueCapacity);
+    }
+
+    @Bean
+    public Ed25519BatchVerifier ed25519BatchVerifier(@Value("${signature.verification.ed25519-batch.enabled:false}") boolean enabled,
+                                                     @Value("${signature.verification.ed25519-batch.max-wait-micros:1000}") long maxWaitMicros,
+                                                     @Value("${signature.verification.ed25519-batch.max-size:64}") int maxBatchSize) {
+        return new Ed25519BatchVerifier(enabled, maxWaitMicros, maxBatchSize);
+    }
+
+    @Bean
+    public ReplayCache replayCache(@Value("${signature.verification.replay-protection.enabled:false}") boolean enabled,
+                                   @Value("${signature.verification.replay-protection.max-age-seconds:300}") long maxAgeSeconds,
+                                   @Value("${signature.verification.replay-protection.clock-skew-seconds:30}") long clockSkewSeconds) {
+        return new ReplayCache(enabled, maxAgeSeconds, clockSkewSeconds);
+    }
+
+    @Bean
+    public VerificationService verificationService(KeypairService keypairService,
+                                                   CryptoExecutor cryptoExecutor,
+                                                   Ed25519BatchVerifier batchVerifier,
+                                                   ReplayCache replayCache,
+                                                   @Value("${signature.key-cache.maximum-size:10000}") long keyCacheMaximumSize,
+                                                   @Value("${signature.verification.labels:}") String[] labels,
+                                                   @Value("${signature.verification.policy:ALL}") VerificationPolicy policy,
+                                                   @Value("${signature.verification.batch-max-in-flight:256}") int batchMaxInFlight) {
+        return VerificationService.builder(keypairService, cryptoExecutor)
+                .ed25519BatchVerifier(batchVerifier)
+                .replayCache(replayCache)
+                .keyCacheMaximumSize(keyCacheMaximumSize)
+                .labels(labels)
+                .policy(policy)
+                .batchMaxInFlight(batchMaxInFlight)
+                .build();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public KeyReloader keyReloader(KeypairService keypairService,
+                                   SignatureService signatureService,
+                                   VerificationService verificationService,
+                                   @Value("${signature.keys.reload.enabled:false}") boolean enabled,
+                                   @Value("${signature.keys.reload.debounce-millis:500}") long debounceMillis) {
+        return new KeyReloader(keypairService, signatureService, verificationService, enabled, debounceMillis);
+    }
+}
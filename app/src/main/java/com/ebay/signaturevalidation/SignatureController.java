@@ -0,0 +1,56 @@
+package com.ebay.signaturevalidation;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+
+@RestController("/")
+public class SignatureController {
+    /**
+     * Verifies captured requests sent in the body; the request itself is not signed. Only served when
+     * {@code signature.verification.batch.enabled} is set, since any caller can use it to load the crypto pool.
+     */
+    public static final String BATCH_PATH = "/verifysignature/batch";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final Logger logger = LoggerFactory.getLogger(SignatureController.class.getName());
+    private final VerificationService verificationService;
+    private final boolean batchEnabled;
+
+    public SignatureController(VerificationService verificationService,
+                               @Value("${signature.verification.batch.enabled:false}") boolean batchEnabled) {
+        this.verificationService = verificationService;
+        this.batchEnabled = batchEnabled;
+    }
+
+    @PostMapping("/verifysignature")
+    public String verifySignaturePOST() {
+        return "OK";
+    }
+
+    @GetMapping("/verifysignature")
+    public String verifySignatureGET() {
+        return "OK";
+    }
+
+    @PostMapping(value = BATCH_PATH, produces = NDJSON)
+    public void verifySignatureBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!batchEnabled) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType(NDJSON);
+        long lines = verificationService.verifyBatch(request.getInputStream(), response.getOutputStream());
+        logger.info("Verified batch of {} lines", lines);
+    }
+
+}
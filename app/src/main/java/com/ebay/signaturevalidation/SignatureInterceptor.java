@@ -19,7 +19,7 @@ public class SignatureInterceptor implements ClientHttpRequestInterceptor {
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
         try {
-            signatureService.signMessage(request, body);
+            signatureService.signMessage(SpringMessages.of(request), body);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
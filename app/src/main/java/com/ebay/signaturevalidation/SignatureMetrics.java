@@ -0,0 +1,165 @@
+package com.ebay.signaturevalidation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes signing and verification timings to Micrometer, and from there to the actuator's /actuator/prometheus
+ * endpoint:
+ * <ul>
+ * <li>{@code signature.verification} and {@code signature.signing}: one timer per algorithm, outcome (success or
+ * failure) and failure reason ({@link FailureReason}, or none)</li>
+ * <li>{@code signature.verification.stage} and {@code signature.signing.stage}: one timer per algorithm and
+ * {@link VerificationStage}, for successful stages</li>
+ * <li>{@code cache.gets}, {@code cache.evictions} and {@code cache.size} for the public key cache, tagged
+ * {@code cache=signature-keys}</li>
+ * </ul>
+ * The algorithm is {@code unknown} for messages rejected before their key was resolved. The timer counts are the
+ * request and failure counts.
+ */
+@Component
+public class SignatureMetrics implements MeterBinder {
+
+    private static final String UNKNOWN_ALGORITHM = "unknown";
+    private static final String KEY_CACHE = "signature-keys";
+
+    private final VerificationService verificationService;
+    private final SignatureService signatureService;
+
+    public SignatureMetrics(VerificationService verificationService, SignatureService signatureService) {
+        this.verificationService = verificationService;
+        this.signatureService = signatureService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Timers verification = new Timers(registry, "signature.verification", "Signature verification of a message");
+        verificationService.addListener(new VerificationListener() {
+            @Override
+            public void stageCompleted(VerificationStage stage, String algorithm, long durationNanos) {
+                verification.stage(algorithm, stage).record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void messageVerified(String algorithm, long durationNanos) {
+                verification.outcome(algorithm, null).record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void messageRejected(String algorithm, SignatureException ex, long durationNanos) {
+                verification.outcome(algorithm, ex.getReason()).record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+
+        Timers signing = new Timers(registry, "signature.signing", "Signing of an outgoing message");
+        signatureService.addListener(new SigningListener() {
+            @Override
+            public void stageCompleted(VerificationStage stage, String algorithm, long durationNanos) {
+                signing.stage(algorithm, stage).record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void messageSigned(String algorithm, long durationNanos) {
+                signing.outcome(algorithm, null).record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void signingFailed(String algorithm, SignatureException ex, long durationNanos) {
+                signing.outcome(algorithm, ex.getReason()).record(durationNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+
+        FunctionCounter.builder("cache.gets", verificationService, service -> service.getKeyCacheStats().hitCount())
+                .tags("cache", KEY_CACHE, "result", "hit")
+                .description("Public key cache lookups that found a key")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", verificationService, service -> service.getKeyCacheStats().missCount())
+                .tags("cache", KEY_CACHE, "result", "miss")
+                .description("Public key cache lookups that had to decrypt the JWE")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", verificationService, service -> service.getKeyCacheStats().evictionCount())
+                .tags("cache", KEY_CACHE)
+                .register(registry);
+        Gauge.builder("cache.size", verificationService, VerificationService::getKeyCacheSize)
+                .tags("cache", KEY_CACHE)
+                .register(registry);
+    }
+
+    /**
+     * The timers of one operation, created on first use and looked up without allocating afterwards.
+     */
+    private static final class Timers {
+        private static final FailureReason[] REASONS = FailureReason.values();
+        private static final VerificationStage[] STAGES = VerificationStage.values();
+
+        private final MeterRegistry registry;
+        private final String name;
+        private final String description;
+        // Indexed by FailureReason ordinal, with success last
+        private final Map<String, Timer[]> outcomes = new ConcurrentHashMap<>();
+        private final Map<String, Timer[]> stages = new ConcurrentHashMap<>();
+
+        private Timers(MeterRegistry registry, String name, String description) {
+            this.registry = registry;
+            this.name = name;
+            this.description = description;
+        }
+
+        private Timer outcome(String algorithm, FailureReason reason) {
+            String algorithmTag = algorithm != null ? algorithm : UNKNOWN_ALGORITHM;
+            Timer[] timers = outcomes.get(algorithmTag);
+            if (timers == null) {
+                timers = outcomes.computeIfAbsent(algorithmTag, this::newOutcomeTimers);
+            }
+            return timers[reason != null ? reason.ordinal() : REASONS.length];
+        }
+
+        private Timer stage(String algorithm, VerificationStage stage) {
+            String algorithmTag = algorithm != null ? algorithm : UNKNOWN_ALGORITHM;
+            Timer[] timers = stages.get(algorithmTag);
+            if (timers == null) {
+                timers = stages.computeIfAbsent(algorithmTag, this::newStageTimers);
+            }
+            return timers[stage.ordinal()];
+        }
+
+        private Timer[] newOutcomeTimers(String algorithm) {
+            Timer[] timers = new Timer[REASONS.length + 1];
+            for (FailureReason reason : REASONS) {
+                timers[reason.ordinal()] = Timer.builder(name)
+                        .description(description)
+                        .tags("algorithm", algorithm, "outcome", "failure", "reason", tagValue(reason))
+                        .register(registry);
+            }
+            timers[REASONS.length] = Timer.builder(name)
+                    .description(description)
+                    .tags("algorithm", algorithm, "outcome", "success", "reason", "none")
+                    .register(registry);
+            return timers;
+        }
+
+        private Timer[] newStageTimers(String algorithm) {
+            Timer[] timers = new Timer[STAGES.length];
+            for (VerificationStage stage : STAGES) {
+                timers[stage.ordinal()] = Timer.builder(name + ".stage")
+                        .description(description + ", by stage")
+                        .tags("algorithm", algorithm, "stage", tagValue(stage))
+                        .register(registry);
+            }
+            return timers;
+        }
+
+        private static String tagValue(Enum<?> value) {
+            return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.ebay.signaturevalidation;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * {@link ClientHttpRequestFactory} that signs requests without holding the body in memory.
+ * <p>
+ * The body written by the caller is hashed for the Content-Digest header in the same pass that spools it into a
+ * buffer, which stays in memory up to {@code memoryThreshold} bytes and spills to a temporary file beyond that. When the
+ * request is executed it is signed, and the spooled body is streamed to a request created by the delegate factory.
+ * Use it instead of {@link SignatureInterceptor} for large uploads: interceptors always receive the whole body as a
+ * byte array.
+ */
+public class SigningClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private final ClientHttpRequestFactory delegate;
+    private final SignatureService signatureService;
+    private final int memoryThreshold;
+
+    public SigningClientHttpRequestFactory(ClientHttpRequestFactory delegate, SignatureService signatureService, int memoryThreshold) {
+        this.delegate = delegate;
+        this.signatureService = signatureService;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return new SigningClientHttpRequest(uri, httpMethod);
+    }
+
+    private class SigningClientHttpRequest extends AbstractClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private DeferredFileOutputStream spool;
+        private MessageDigest digest;
+        private OutputStream body;
+        private long length;
+
+        private SigningClientHttpRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+            if (body != null) {
+                return body;
+            }
+
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IOException("Error creating message digest: " + ex.getMessage(), ex);
+            }
+            spool = DeferredFileOutputStream.builder()
+                    .setThreshold(memoryThreshold)
+                    .setPrefix("signature-upload")
+                    .setSuffix(".tmp")
+                    .get();
+
+            body = new DigestOutputStream(spool, digest) {
+                @Override
+                public void write(int b) throws IOException {
+                    super.write(b);
+                    length++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    super.write(b, off, len);
+                    length += len;
+                }
+            };
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            try {
+                byte[] bodyDigest = length > 0 ? digest.digest() : null;
+                signatureService.signDigestedMessage(SpringMessages.of(this), bodyDigest);
+
+                ClientHttpRequest request = delegate.createRequest(uri, method);
+                request.getHeaders().putAll(headers);
+                if (length > 0) {
+                    request.getHeaders().setContentLength(length);
+                    spool.close();
+                    try (InputStream spooledBody = spool.toInputStream()) {
+                        spooledBody.transferTo(request.getBody());
+                    }
+                }
+                return request.execute();
+            } catch (SignatureException ex) {
+                throw new IOException("Error signing request: " + ex.getMessage(), ex);
+            } finally {
+                deleteSpool();
+            }
+        }
+
+        private void deleteSpool() throws IOException {
+            if (spool != null) {
+                spool.close();
+                if (!spool.isInMemory()) {
+                    Files.deleteIfExists(spool.getPath());
+                }
+            }
+        }
+    }
+}
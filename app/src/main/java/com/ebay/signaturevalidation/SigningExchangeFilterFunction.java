@@ -0,0 +1,106 @@
+package com.ebay.signaturevalidation;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+
+/**
+ * {@link ExchangeFilterFunction} that signs the requests of a WebClient, the reactive counterpart of
+ * {@link SignatureInterceptor}:
+ * <pre>
+ * WebClient webClient = WebClient.builder().filter(signingExchangeFilterFunction).build();
+ * </pre>
+ * The body is hashed for the Content-Digest header as the encoder produces it. Since the signature headers have to be
+ * sent before the body, the encoded chunks are held, without being joined, until the body is complete; the request is
+ * then signed with {@link SignatureService#signDigestedMessage} and the chunks are written out. Nothing blocks, so any
+ * number of signed requests can be in flight on the event loop.
+ */
+@Component
+public class SigningExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final SignatureService signatureService;
+
+    public SigningExchangeFilterFunction(SignatureService signatureService) {
+        this.signatureService = signatureService;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        ClientRequest signedRequest = ClientRequest.from(request)
+                .body((outputMessage, context) -> request.body().insert(new SigningClientHttpRequest(outputMessage), context))
+                .build();
+        return next.exchange(signedRequest);
+    }
+
+    /**
+     * Also an {@link HttpRequest}, so that {@link SignatureService} can sign it through {@link SpringMessages}.
+     */
+    private class SigningClientHttpRequest extends ClientHttpRequestDecorator implements HttpRequest {
+
+        private SigningClientHttpRequest(ClientHttpRequest delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public String getMethodValue() {
+            return getMethod().name();
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                return Mono.error(new SignatureException("Error creating message digest: " + ex.getMessage(), ex));
+            }
+
+            return Flux.from(body)
+                    .doOnNext(buffer -> digest.update(buffer.asByteBuffer()))
+                    .collect(ArrayList<DataBuffer>::new, ArrayList::add)
+                    .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release)
+                    .flatMap(chunks -> {
+                        boolean empty = chunks.stream().allMatch(chunk -> chunk.readableByteCount() == 0);
+                        try {
+                            signatureService.signDigestedMessage(SpringMessages.of(this), empty ? null : digest.digest());
+                        } catch (SignatureException ex) {
+                            chunks.forEach(DataBufferUtils::release);
+                            return Mono.error(ex);
+                        }
+                        return super.writeWith(Flux.fromIterable(chunks));
+                    });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.defer(() -> {
+                try {
+                    signatureService.signDigestedMessage(SpringMessages.of(this), null);
+                } catch (SignatureException ex) {
+                    return Mono.error(ex);
+                }
+                return super.setComplete();
+            });
+        }
+    }
+}
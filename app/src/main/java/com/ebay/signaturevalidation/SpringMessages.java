@@ -0,0 +1,185 @@
+package com.ebay.signaturevalidation;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Adapts the requests of the servlet and Spring web stacks to the message types of the signature core.
+ */
+public final class SpringMessages {
+
+    private SpringMessages() {
+    }
+
+    /**
+     * Message components of an outgoing Spring request, to which the signature headers are added.
+     */
+    public static SignableMessage of(HttpRequest request) {
+        return new SignableMessage() {
+            @Override
+            public String getMethod() {
+                return request.getMethodValue();
+            }
+
+            @Override
+            public URI getUri() {
+                return request.getURI();
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return combine(request.getHeaders().get(name));
+            }
+
+            @Override
+            public void setHeader(String name, String value) {
+                request.getHeaders().set(name, value);
+            }
+
+            @Override
+            public void addHeader(String name, String value) {
+                request.getHeaders().add(name, value);
+            }
+        };
+    }
+
+    /**
+     * A view of a received servlet request that reads header fields and URI parts from the request only when a
+     * signature covers them. The target URI is only built, once, for the components that need all of it.
+     */
+    public static MessageComponents received(HttpServletRequest request) {
+        return new MessageComponents() {
+            private volatile URI uri;
+
+            @Override
+            public String getMethod() {
+                return request.getMethod();
+            }
+
+            @Override
+            public URI getUri() {
+                URI result = uri;
+                if (result == null) {
+                    result = Tools.getURI(request);
+                    uri = result;
+                }
+                return result;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                Enumeration<String> values = request.getHeaders(name);
+                if (values == null || !values.hasMoreElements()) {
+                    return null;
+                }
+                String first = values.nextElement();
+                if (!values.hasMoreElements()) {
+                    return first;
+                }
+                StringBuilder combined = new StringBuilder(first);
+                while (values.hasMoreElements()) {
+                    combined.append(", ").append(values.nextElement());
+                }
+                return combined.toString();
+            }
+
+            @Override
+            public String getAuthority() {
+                int port = request.getServerPort();
+                return port != 80 && port != 443 ? request.getServerName() + ":" + port : request.getServerName();
+            }
+
+            @Override
+            public String getPath() {
+                String pathInfo = request.getPathInfo();
+                String path = request.getContextPath() + request.getServletPath();
+                return pathInfo != null ? path + pathInfo : path;
+            }
+
+            @Override
+            public String getScheme() {
+                return request.getScheme();
+            }
+        };
+    }
+
+    /**
+     * A view of a received WebFlux request. The framework has already parsed its URI, so only the header fields are
+     * read on demand.
+     */
+    public static MessageComponents received(ServerHttpRequest request) {
+        return new MessageComponents() {
+            @Override
+            public String getMethod() {
+                return request.getMethodValue();
+            }
+
+            @Override
+            public URI getUri() {
+                return request.getURI();
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return combine(request.getHeaders().get(name));
+            }
+        };
+    }
+
+    /**
+     * Message components of a servlet response being sent, to which the signature headers are added. The request
+     * components are those of the request it answers.
+     */
+    public static SignableMessage response(HttpServletRequest request, HttpServletResponse response) {
+        MessageComponents requestComponents = received(request);
+        return new SignableMessage() {
+            @Override
+            public String getMethod() {
+                return requestComponents.getMethod();
+            }
+
+            @Override
+            public URI getUri() {
+                return requestComponents.getUri();
+            }
+
+            @Override
+            public String getHeader(String name) {
+                Collection<String> values = response.getHeaders(name);
+                return values.isEmpty() ? null : String.join(", ", values);
+            }
+
+            @Override
+            public int getStatus() {
+                return response.getStatus();
+            }
+
+            @Override
+            public void setHeader(String name, String value) {
+                response.setHeader(name, value);
+            }
+
+            @Override
+            public void addHeader(String name, String value) {
+                response.addHeader(name, value);
+            }
+        };
+    }
+
+    /**
+     * Combines the values of a field sent on several lines as RFC 9421 section 2.1 requires.
+     */
+    private static String combine(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.size() == 1 ? values.get(0) : String.join(", ", values);
+    }
+}
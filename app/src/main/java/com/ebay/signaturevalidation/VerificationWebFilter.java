@@ -0,0 +1,121 @@
+package com.ebay.signaturevalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Verifies the signatures of incoming requests in a Spring WebFlux application, the reactive counterpart of
+ * {@link VerificationInterceptor}.
+ * <p>
+ * Body chunks are hashed as they arrive, on the event loop, and kept as they are, without being joined into one
+ * buffer. When the body is complete, the signature checks run on the {@link CryptoExecutor}, and the request is
+ * passed on with its buffered body, or answered with 403 and the reason. Bodies larger than
+ * {@code signature.verification.reactive.max-body-size} bytes are rejected with 413, and requests arriving while the
+ * crypto pool's queue is full with 503.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class VerificationWebFilter implements WebFilter {
+
+    private final VerificationService verificationService;
+    private final CryptoExecutor cryptoExecutor;
+    private final long maxBodySize;
+
+    private final Logger logger = LoggerFactory.getLogger(VerificationWebFilter.class.getName());
+
+    public VerificationWebFilter(VerificationService verificationService,
+                                 CryptoExecutor cryptoExecutor,
+                                 @Value("${signature.verification.reactive.max-body-size:10485760}") long maxBodySize) {
+        this.verificationService = verificationService;
+        this.cryptoExecutor = cryptoExecutor;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getPath().pathWithinApplication().value().startsWith("/actuator/")) {
+            return chain.filter(exchange);
+        }
+
+        MessageComponents message = SpringMessages.received(request);
+        BodyDigest bodyDigest = new BodyDigest(message.getHeader("content-digest"));
+
+        return request.getBody()
+                .doOnNext(buffer -> {
+                    if (bodyDigest.getLength() + buffer.readableByteCount() > maxBodySize) {
+                        DataBufferUtils.release(buffer);
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Request body larger than " + maxBodySize + " bytes");
+                    }
+                    bodyDigest.update(buffer.asByteBuffer());
+                })
+                .collect(ArrayList<DataBuffer>::new, ArrayList::add)
+                .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release)
+                .flatMap(body -> verify(bodyDigest, message)
+                        .then(Mono.defer(() -> chain.filter(exchange.mutate().request(new BufferedBodyRequest(request, body)).build())))
+                        .onErrorResume(SignatureException.class, ex -> reject(exchange.getResponse(), ex))
+                        .doFinally(signal -> body.forEach(DataBufferUtils::release)));
+    }
+
+    private Mono<Void> verify(BodyDigest bodyDigest, MessageComponents message) {
+        return Mono.defer(() -> {
+            try {
+                return Mono.fromFuture(cryptoExecutor.submit(() -> {
+                    verificationService.verifyMessage(bodyDigest, message);
+                    return null;
+                }));
+            } catch (RejectedExecutionException ex) {
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Verification queue full", ex));
+            }
+        }).then();
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, SignatureException ex) {
+        logger.info("Signature verification failed: {}", ex.getMessage());
+        response.setStatusCode(HttpStatus.FORBIDDEN);
+        response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+        byte[] message = String.valueOf(ex.getMessage()).getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(message)));
+    }
+
+    /**
+     * Hands the verified body chunks to the handler. Each subscriber gets its own reference to the chunks and releases
+     * it; the filter releases the original references once the exchange is done.
+     */
+    private static final class BufferedBodyRequest extends ServerHttpRequestDecorator {
+        private final List<DataBuffer> body;
+
+        private BufferedBodyRequest(ServerHttpRequest delegate, List<DataBuffer> body) {
+            super(delegate);
+            this.body = body;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.fromIterable(body).map(DataBufferUtils::retain);
+        }
+    }
+}
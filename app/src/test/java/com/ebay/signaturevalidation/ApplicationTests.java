@@ -0,0 +1,597 @@
+package com.ebay.signaturevalidation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes={ SignatureConfiguration.class })
+class ApplicationTests {
+
+    @Autowired
+    private VerificationService verificationService;
+
+    @Autowired
+    private SignatureService signatureService;
+
+    @Autowired
+    private KeypairService keypairService;
+
+    @Autowired
+    private CryptoExecutor cryptoExecutor;
+
+    /**
+     * The x-ebay-signature-key JWE of the Ed25519 test signature, made with the keys in keys/.
+     */
+    private static final String ED25519_SIGNATURE_KEY = "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw";
+
+    private URI uri = URI.create("http://localhost:8080/verifysignature");
+
+    @Test
+    void testSignature() throws Exception {
+        byte[] body = "{\"hello\": \"world\"}".getBytes(StandardCharsets.UTF_8);
+
+        HttpRequest httpRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        signatureService.signMessage(SpringMessages.of(httpRequest), body);
+    }
+
+    @Test
+    void testStreamedSignature() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+
+        HttpRequest httpRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        signatureService.signMessage(SpringMessages.of(httpRequest), new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals("sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:", httpRequest.getHeaders().getFirst("Content-Digest"));
+        Map<String, String> headers = new HashMap<>();
+        httpRequest.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        verificationService.verifyMessage(body, headers, uri, "POST");
+    }
+
+    @Test
+    void testConcurrentSigning() throws Exception {
+        int threads = 8;
+        int requestsPerThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        boolean withBody = (thread + i) % 2 == 0;
+                        String body = withBody ? "{\"thread\": " + thread + ", \"request\": " + i + "}" : "";
+                        URI requestUri = URI.create("http://localhost:8080/verifysignature/" + thread + "/" + i);
+
+                        HttpRequest httpRequest = new MockClientHttpRequest(withBody ? HttpMethod.POST : HttpMethod.GET, requestUri);
+                        signatureService.signMessage(SpringMessages.of(httpRequest), body.getBytes(StandardCharsets.UTF_8));
+
+                        Map<String, String> headers = new HashMap<>();
+                        httpRequest.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+                        Assertions.assertEquals(withBody, headers.get("signature-input").contains("content-digest"));
+                        verificationService.verifyMessage(body, headers, requestUri, httpRequest.getMethodValue());
+                    }
+                    return requestsPerThread;
+                }));
+            }
+
+            int signed = 0;
+            for (Future<Integer> result : results) {
+                signed += result.get();
+            }
+            Assertions.assertEquals(threads * requestsPerThread, signed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWebClientSigning() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        AtomicReference<org.springframework.mock.http.client.reactive.MockClientHttpRequest> sent = new AtomicReference<>();
+
+        ClientRequest request = ClientRequest.create(HttpMethod.POST, uri)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(BodyInserters.fromValue(body))
+                .build();
+        exchange(request, sent);
+
+        Assertions.assertEquals(body, sent.get().getBodyAsString().block(Duration.ofSeconds(10)));
+        Assertions.assertEquals("sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:", sent.get().getHeaders().getFirst("Content-Digest"));
+        Map<String, String> headers = new HashMap<>();
+        sent.get().getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        verificationService.verifyMessage(body, headers, uri, "POST");
+    }
+
+    @Test
+    void testWebClientSigningWithoutBody() throws Exception {
+        AtomicReference<org.springframework.mock.http.client.reactive.MockClientHttpRequest> sent = new AtomicReference<>();
+
+        exchange(ClientRequest.create(HttpMethod.GET, uri).build(), sent);
+
+        Map<String, String> headers = new HashMap<>();
+        sent.get().getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        Assertions.assertNull(headers.get("content-digest"));
+        verificationService.verifyMessage("", headers, uri, "GET");
+    }
+
+    /**
+     * Passes the request through the signing filter and writes it to a mock request instead of sending it.
+     */
+    private void exchange(ClientRequest request, AtomicReference<org.springframework.mock.http.client.reactive.MockClientHttpRequest> sent) {
+        new SigningExchangeFilterFunction(signatureService)
+                .filter(request, signedRequest -> {
+                    sent.set(new org.springframework.mock.http.client.reactive.MockClientHttpRequest(signedRequest.method(), signedRequest.url()));
+                    return signedRequest.writeTo(sent.get(), ExchangeStrategies.withDefaults())
+                            .then(Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+                })
+                .block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testVerificationMultipleLabels() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        HttpRequest httpRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        signatureService.signMessage(SpringMessages.of(httpRequest), body.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>();
+        httpRequest.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        String signatureInput = headers.get("signature-input");
+        String signature = headers.get("signature");
+        String invalidSignature = ":" + Base64.getEncoder().encodeToString(new byte[64]) + ":";
+
+        // An intermediary adds sig2 with its own key, whose JWE it names in keyid
+        KeyPair proxyKey = KeyPairGenerator.getInstance("Ed25519", new BouncyCastleProvider()).generateKeyPair();
+        String proxyParams = "(\"@method\" \"@path\" \"@authority\");created=1658440308;keyid=\""
+                + keypairService.getJWE(proxyKey.getPublic()) + "\"";
+        String proxySignature = sign(proxyKey, proxyParams, headers);
+        headers.put("signature-input", signatureInput + ", sig2=" + proxyParams);
+        headers.put("signature", signature + ", sig2=" + proxySignature);
+
+        // By default only the first label is verified
+        verificationService.verifyMessage(body, headers, uri, "POST");
+
+        VerificationService both = VerificationService.builder(keypairService, cryptoExecutor).labels("sig1", "sig2").build();
+        both.verifyMessage(body, headers, uri, "POST");
+
+        VerificationService anyOf = VerificationService.builder(keypairService, cryptoExecutor)
+                .labels("sig1", "sig2")
+                .policy(VerificationPolicy.ANY)
+                .build();
+        VerificationService sig2Only = VerificationService.builder(keypairService, cryptoExecutor).labels("sig2").build();
+        sig2Only.verifyMessage(body, headers, uri, "POST");
+
+        // sig2 invalid
+        headers.put("signature", signature + ", sig2=" + invalidSignature);
+        verificationService.verifyMessage(body, headers, uri, "POST");
+        anyOf.verifyMessage(body, headers, uri, "POST");
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, () -> both.verifyMessage(body, headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.BAD_SIGNATURE, ex.getReason());
+        Assertions.assertThrows(SignatureException.class, () -> sig2Only.verifyMessage(body, headers, uri, "POST"));
+
+        // sig1 invalid, sig2 valid
+        headers.put("signature", "sig1=" + invalidSignature + ", sig2=" + proxySignature);
+        anyOf.verifyMessage(body, headers, uri, "POST");
+        Assertions.assertThrows(SignatureException.class, () -> both.verifyMessage(body, headers, uri, "POST"));
+
+        // The key of sig2 does not resolve
+        headers.put("signature-input", signatureInput + ", sig2=" + proxyParams.replaceFirst("keyid=\"[^\"]*\"", "keyid=\"a.b.c.d.e\""));
+        headers.put("signature", signature + ", sig2=" + proxySignature);
+        anyOf.verifyMessage(body, headers, uri, "POST");
+        Assertions.assertThrows(SignatureException.class, () -> both.verifyMessage(body, headers, uri, "POST"));
+
+        // No label verifies
+        headers.put("signature", "sig1=" + invalidSignature + ", sig2=" + invalidSignature);
+        Assertions.assertThrows(SignatureException.class, () -> anyOf.verifyMessage(body, headers, uri, "POST"));
+    }
+
+    @Test
+    void testVerificationPlainKeyId() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        HttpRequest httpRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        signatureService.signMessage(SpringMessages.of(httpRequest), body.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>();
+        httpRequest.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+
+        // A key name that is not a JWE leaves the key to the x-ebay-signature-key header
+        String params = headers.get("signature-input").substring("sig1=".length()) + ";keyid=\"test-key-ed25519\"";
+        headers.put("signature-input", "sig1=" + params);
+        headers.put("signature", "sig1=" + sign(keypairService.loadExistingKeyPair(), params, headers));
+        verificationService.verifyMessage(body, headers, uri, "POST");
+
+        headers.put("x-ebay-signature-key", "test-key-ed25519");
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, () -> verificationService.verifyMessage(body, headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.BAD_JWE, ex.getReason());
+    }
+
+    /**
+     * Signs the message the way an intermediary would add its own signature.
+     */
+    private String sign(KeyPair keyPair, String signatureParams, Map<String, String> headers) throws SignatureException {
+        SignatureInput signatureInput = StructuredFieldParser.parseSignatureInput("sig=" + signatureParams).get(0);
+        SignatureBaseEncoder base = SignatureBaseEncoder.forCurrentThread()
+                .encode(signatureInput.getPlan(), MessageComponents.of("POST", uri, headers), signatureInput.getValue());
+        byte[] signature = PreparedSigner.forPrivateKey(keyPair.getPrivate()).sign(base.getBuffer(), 0, base.getLength());
+        return ":" + Base64.getEncoder().encodeToString(signature) + ":";
+    }
+
+    @Test
+    void testVerifyBatch() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringBuilder records = new StringBuilder();
+        int count = 500;
+        for (int i = 0; i < count; i++) {
+            String body = i % 3 == 0 ? "" : "{\"record\": " + i + "}";
+            URI requestUri = URI.create("http://localhost:8080/webhook/" + i);
+            HttpRequest httpRequest = new MockClientHttpRequest(body.isEmpty() ? HttpMethod.GET : HttpMethod.POST, requestUri);
+            signatureService.signMessage(SpringMessages.of(httpRequest), body.getBytes(StandardCharsets.UTF_8));
+
+            Map<String, Object> record = new HashMap<>();
+            record.put("id", "r" + i);
+            record.put("method", httpRequest.getMethodValue());
+            record.put("uri", requestUri.toString());
+            record.put("headers", httpRequest.getHeaders().toSingleValueMap());
+            // Every seventh record was tampered with after signing
+            record.put("body", i % 7 == 1 ? body + " " : body);
+            records.append(objectMapper.writeValueAsString(record)).append('\n');
+        }
+        records.append("not json\n");
+
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        long lines = verificationService.verifyBatch(new ByteArrayInputStream(records.toString().getBytes(StandardCharsets.UTF_8)), results);
+        Assertions.assertEquals(count + 1, lines);
+
+        List<String> resultLines = new String(results.toByteArray(), StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        Assertions.assertEquals(count + 1, resultLines.size());
+        for (int i = 0; i < count; i++) {
+            JsonNode result = objectMapper.readTree(resultLines.get(i));
+            Assertions.assertEquals(i + 1, result.get("line").asInt());
+            Assertions.assertEquals("r" + i, result.get("id").asText());
+            Assertions.assertEquals(i % 7 != 1, result.get("verified").asBoolean(), resultLines.get(i));
+        }
+        JsonNode invalid = objectMapper.readTree(resultLines.get(count));
+        Assertions.assertFalse(invalid.get("verified").asBoolean());
+        Assertions.assertTrue(invalid.get("error").asText().startsWith("Invalid record"));
+    }
+
+    @Test
+    void testVerifyBatchDisabled() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SignatureController.BATCH_PATH);
+        request.setContent("{}\n".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new SignatureController(verificationService, false).verifySignatureBatch(request, response);
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatus());
+        Assertions.assertEquals(0, response.getContentLength());
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new SignatureMetrics(verificationService, signatureService).bindTo(registry);
+
+        String body = "{\"hello\": \"world\"}";
+        HttpRequest httpRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        signatureService.signMessage(SpringMessages.of(httpRequest), body.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>();
+        httpRequest.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+
+        verificationService.verifyMessage(body, headers, uri, "POST");
+        SignatureException badDigest = Assertions.assertThrows(SignatureException.class,
+                () -> verificationService.verifyMessage(body + " ", headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.BAD_DIGEST, badDigest.getReason());
+        headers.remove("signature");
+        SignatureException missingHeader = Assertions.assertThrows(SignatureException.class,
+                () -> verificationService.verifyMessage(body, headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.MISSING_HEADER, missingHeader.getReason());
+
+        Assertions.assertEquals(1, registry.get("signature.signing").tags("algorithm", "Ed25519", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.get("signature.signing.stage").tags("algorithm", "Ed25519", "stage", "signature").timer().count());
+        Assertions.assertEquals(1, registry.get("signature.verification").tags("algorithm", "Ed25519", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.get("signature.verification").tags("algorithm", "Ed25519", "reason", "bad-digest").timer().count());
+        Assertions.assertEquals(1, registry.get("signature.verification").tags("algorithm", "unknown", "reason", "missing-header").timer().count());
+        Assertions.assertEquals(2, registry.get("signature.verification.stage").tags("algorithm", "Ed25519", "stage", "key").timer().count());
+        Assertions.assertEquals(1, registry.get("signature.verification.stage").tags("algorithm", "Ed25519", "stage", "signature").timer().count());
+        Assertions.assertTrue(registry.get("cache.gets").tags("cache", "signature-keys", "result", "hit").functionCounter().count() >= 1);
+    }
+
+    @Test
+    void testVerificationEd25519() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw"
+        );
+
+        verificationService.verifyMessage(body, headers, uri, "POST");
+    }
+
+    @Test
+    void testVerificationUsesKeyCache() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw"
+        );
+
+        verificationService.verifyMessage(body, headers, uri, "POST");
+        long hits = verificationService.getKeyCacheStats().hitCount();
+        verificationService.verifyMessage(body, headers, uri, "POST");
+
+        Assertions.assertEquals(hits + 1, verificationService.getKeyCacheStats().hitCount());
+    }
+
+    @Test
+    void testVerificationRejectsReplay() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw"
+        );
+
+        // The clock stands still at the signature's created time
+        ReplayCache cache = new ReplayCache(true, 300, 30, Clock.fixed(Instant.ofEpochSecond(1658440308), ZoneOffset.UTC));
+        VerificationService service = VerificationService.builder(keypairService, cryptoExecutor)
+                .replayCache(cache)
+                .build();
+
+        service.verifyMessage(body, headers, uri, "POST");
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, () -> service.verifyMessage(body, headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.REPLAYED, ex.getReason());
+    }
+
+    @Test
+    void testReplayProtectionOfSignedRequests() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        VerificationService service = VerificationService.builder(keypairService, cryptoExecutor)
+                .replayCache(new ReplayCache(true, 300, 30))
+                .build();
+
+        // Signed now, so accepted once
+        HttpRequest httpRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        signatureService.signMessage(SpringMessages.of(httpRequest), body.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>();
+        httpRequest.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        service.verifyMessage(body, headers, uri, "POST");
+        SignatureException replayed = Assertions.assertThrows(SignatureException.class, () -> service.verifyMessage(body, headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.REPLAYED, replayed.getReason());
+
+        // Signed with the clock of the test vectors
+        SignatureService fixedSigner = new SignatureService(keypairService, Clock.fixed(Instant.ofEpochSecond(1658440308), ZoneOffset.UTC));
+        HttpRequest oldRequest = new MockClientHttpRequest(HttpMethod.POST, uri);
+        fixedSigner.signMessage(SpringMessages.of(oldRequest), body.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> oldHeaders = new HashMap<>();
+        oldRequest.getHeaders().forEach((name, values) -> oldHeaders.put(name.toLowerCase(), values.get(0)));
+        Assertions.assertTrue(oldHeaders.get("signature-input").endsWith(";created=1658440308"), oldHeaders.get("signature-input"));
+        SignatureException expired = Assertions.assertThrows(SignatureException.class, () -> service.verifyMessage(body, oldHeaders, uri, "POST"));
+        Assertions.assertEquals(FailureReason.EXPIRED, expired.getReason());
+    }
+
+    @Test
+    void testVerifyBatchIgnoresReplayProtection() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:",
+                "x-ebay-signature-key", ED25519_SIGNATURE_KEY
+        );
+        Map<String, Object> record = new HashMap<>();
+        record.put("method", "POST");
+        record.put("uri", uri.toString());
+        record.put("headers", headers);
+        record.put("body", body);
+        byte[] records = (new ObjectMapper().writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        // Archived a day after it was signed: only the live path enforces the created window
+        ReplayCache archiveCache = new ReplayCache(true, 300, 30, Clock.fixed(Instant.ofEpochSecond(1658440308 + 86400), ZoneOffset.UTC));
+        VerificationService archive = VerificationService.builder(keypairService, cryptoExecutor)
+                .replayCache(archiveCache)
+                .build();
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        archive.verifyBatch(new ByteArrayInputStream(records), results);
+        Assertions.assertTrue(new ObjectMapper().readTree(results.toByteArray()).get("verified").asBoolean(), results.toString(StandardCharsets.UTF_8));
+        SignatureException expired = Assertions.assertThrows(SignatureException.class, () -> archive.verifyMessage(body, headers, uri, "POST"));
+        Assertions.assertEquals(FailureReason.EXPIRED, expired.getReason());
+
+        // Verified twice in batches while still within the window, and neither counts as receiving it
+        ReplayCache liveCache = new ReplayCache(true, 300, 30, Clock.fixed(Instant.ofEpochSecond(1658440308), ZoneOffset.UTC));
+        VerificationService live = VerificationService.builder(keypairService, cryptoExecutor)
+                .replayCache(liveCache)
+                .build();
+        for (int i = 0; i < 2; i++) {
+            results.reset();
+            live.verifyBatch(new ByteArrayInputStream(records), results);
+            Assertions.assertTrue(new ObjectMapper().readTree(results.toByteArray()).get("verified").asBoolean(), results.toString(StandardCharsets.UTF_8));
+        }
+        live.verifyMessage(body, headers, uri, "POST");
+    }
+
+    @Test
+    void testVerificationRSA() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:iw11s/s1Vh6/+U5YuJaLQdC+bWNpxWWrKZZ0l3QUv9/s+/0OFKrqg5MVxB0wejD7yRZ6kWcGNcAtIDbbdRllaVMDdjLWnXb043t7fPoi2AMOSMtnf4xktAmhjGsSHEjIrr1q48vl8OGz8hGAGpLY5xaoCdzTaTFz8CZKPt0RmWKXrAuFBobHBgPNfRcH9nTcsqVEuxCxWXZyAL8gb4arS/NJRjrTwBUBxfyPq1sZJR7aZosLEAXLN/2MEfhtmf5nU+EYC0BqzluiaYj46eEZM/AAiqnFEZ876sfk2LjXOEFigxCOqWmSqrHzIVaW4/45+vFPrjNY3YOHHMvu9W+UnA==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+
+        verificationService.verifyMessage(body, headers, uri, "POST");
+    }
+
+    @Test
+    void testVerificationMissingSignature() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationSignatureInvalidFormat() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "invalid",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationSignatureInvalidBase64() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:invalid:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationInvalidSignature() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:iw11s/s1Vh7/+U5YuJaLQdC+bWNpxWWrKZZ0l3QUv9/s+/0OFKrqg5MVxB0wejD7yRZ6kWcGNcAtIDbbdRllaVMDdjLWnXb043t7fPoi2AMOSMtnf4xktAmhjGsSHEjIrr1q48vl8OGz8hGAGpLY5xaoCdzTaTFz8CZKPt0RmWKXrAuFBobHBgPNfRcH9nTcsqVEuxCxWXZyAL8gb4arS/NJRjrTwBUBxfyPq1sZJR7aZosLEAXLN/2MEfhtmf5nU+EYC0BqzluiaYj46eEZM/AAiqnFEZ876sfk2LjXOEFigxCOqWmSqrHzIVaW4/45+vFPrjNY3YOHHMvu9W+UnA==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationMissingContentDigest() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "signature", "sig1=:iw11s/s1Vh6/+U5YuJaLQdC+bWNpxWWrKZZ0l3QUv9/s+/0OFKrqg5MVxB0wejD7yRZ6kWcGNcAtIDbbdRllaVMDdjLWnXb043t7fPoi2AMOSMtnf4xktAmhjGsSHEjIrr1q48vl8OGz8hGAGpLY5xaoCdzTaTFz8CZKPt0RmWKXrAuFBobHBgPNfRcH9nTcsqVEuxCxWXZyAL8gb4arS/NJRjrTwBUBxfyPq1sZJR7aZosLEAXLN/2MEfhtmf5nU+EYC0BqzluiaYj46eEZM/AAiqnFEZ876sfk2LjXOEFigxCOqWmSqrHzIVaW4/45+vFPrjNY3YOHHMvu9W+UnA==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationInvalidContentDigestFormat() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "invalid",
+                "signature", "sig1=:iw11s/s1Vh6/+U5YuJaLQdC+bWNpxWWrKZZ0l3QUv9/s+/0OFKrqg5MVxB0wejD7yRZ6kWcGNcAtIDbbdRllaVMDdjLWnXb043t7fPoi2AMOSMtnf4xktAmhjGsSHEjIrr1q48vl8OGz8hGAGpLY5xaoCdzTaTFz8CZKPt0RmWKXrAuFBobHBgPNfRcH9nTcsqVEuxCxWXZyAL8gb4arS/NJRjrTwBUBxfyPq1sZJR7aZosLEAXLN/2MEfhtmf5nU+EYC0BqzluiaYj46eEZM/AAiqnFEZ876sfk2LjXOEFigxCOqWmSqrHzIVaW4/45+vFPrjNY3YOHHMvu9W+UnA==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationInvalidContentDigestDigest() throws Exception {
+        String body = "{\"hello\": \"world\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-123=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:iw11s/s1Vh6/+U5YuJaLQdC+bWNpxWWrKZZ0l3QUv9/s+/0OFKrqg5MVxB0wejD7yRZ6kWcGNcAtIDbbdRllaVMDdjLWnXb043t7fPoi2AMOSMtnf4xktAmhjGsSHEjIrr1q48vl8OGz8hGAGpLY5xaoCdzTaTFz8CZKPt0RmWKXrAuFBobHBgPNfRcH9nTcsqVEuxCxWXZyAL8gb4arS/NJRjrTwBUBxfyPq1sZJR7aZosLEAXLN/2MEfhtmf5nU+EYC0BqzluiaYj46eEZM/AAiqnFEZ876sfk2LjXOEFigxCOqWmSqrHzIVaW4/45+vFPrjNY3YOHHMvu9W+UnA==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+
+    @Test
+    void testVerificationInvalidContentDigestValue() throws Exception {
+        String body = "{\"hello\": \"invalid\"}";
+        Map<String, String> headers = Map.of(
+                "content-type", "application/json",
+                "signature-input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "signature", "sig1=:iw11s/s1Vh6/+U5YuJaLQdC+bWNpxWWrKZZ0l3QUv9/s+/0OFKrqg5MVxB0wejD7yRZ6kWcGNcAtIDbbdRllaVMDdjLWnXb043t7fPoi2AMOSMtnf4xktAmhjGsSHEjIrr1q48vl8OGz8hGAGpLY5xaoCdzTaTFz8CZKPt0RmWKXrAuFBobHBgPNfRcH9nTcsqVEuxCxWXZyAL8gb4arS/NJRjrTwBUBxfyPq1sZJR7aZosLEAXLN/2MEfhtmf5nU+EYC0BqzluiaYj46eEZM/AAiqnFEZ876sfk2LjXOEFigxCOqWmSqrHzIVaW4/45+vFPrjNY3YOHHMvu9W+UnA==:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiYVMxUlZybG9UdXdRaDBuRHZDOGJFZyIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiYVRwdE5ubGJqalJCR2dQQiJ9.6ZfgB6dRVjMqrney1nOlJpPm11tDziWFk2RuhwWrCyE.6lKneGYFN_148y3C.7Z0IMkg0e1dBFq4K5QmBoLi6V_cXTDF5rLyFss16j2IJMtdIknHHQn49tmSzjtM1gS04ueruCdBWixuPdzWOpJk-F6BkfslIDvP10WXesb0chGgPqROzWPzYJtZLJDDACFeqLBSRC5aevBYNZIBtbwoOZd9Q0JUAOhaLkeOmJEbnYoJyfDY-XLB9LgySNsE9GM2lo72NmAnjTxFal3Icnqd7pVhbhG5gFvPJbNzZJgNXDKOxV3qJ4kkM6RIdxfuoqXe-8VTVOCUee4P5Ce6bw7wTFrpsZIiaKVb10r4tp7mf90Y2VyxTWMGJVtslI44dA4s8kz8lM_b9GE2jx8MYNOOqt7bJt_ATf87LiwSQ56SPdz0bEpWwYn8gqifj9SjtCyx4EOYQIHFIqbS0oUn8T_TIpvsSgD3RNP2jlFvxZI-9fHOOjhCqQ2_dyAWPWkLPtHERfwPUy5FDR3naKlucjfOKXzuraIqyX8pcZQbkq7ESiyTxZU-trkcvEDquOpJLWElxACYKhCBns00oG-TcOEzrAIBwXZlBMdQR7rLM3QmT3K4a-Yu1VBQ2bl4.FM42Am9AoxNanBs3cFCK0w"
+        );
+        Assertions.assertThrows(SignatureException.class, () -> {
+            verificationService.verifyMessage(body, headers, uri, "POST");
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.*;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = {Application.class, RestTemplate.class}, webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT,
+		properties = "signature.verification.batch.enabled=true")
+@AutoConfigureMetrics
+class ApplicationTestsIT {
+
+	@Autowired
+	private RestTemplate restTemplateWithSignature;
+
+	@Autowired
+	private RestTemplate restTemplateWithStreamingSignature;
+
+	@LocalServerPort
+	private String port;
+
+	private String getLocalhostUrl() {
+		return "http://localhost:" + port;
+	}
+
+
+	@Test
+	void testSigningPOST() throws Exception {
+		String body = "{\"hello\": \"world\"}";
+
+		HttpHeaders headers = new HttpHeaders();
+		HttpEntity<String> requestEntity = new HttpEntity<>(body, headers);
+
+		ResponseEntity<String> response = restTemplateWithSignature.exchange(getLocalhostUrl() + "/verifysignature", HttpMethod.POST, requestEntity, String.class);
+
+		assertEquals(response.getStatusCode(), HttpStatus.OK);
+		assertEquals(response.getBody(), "OK");
+	}
+
+	@Test
+	void testSigningGET() throws Exception {
+
+		HttpHeaders headers = new HttpHeaders();
+		HttpEntity<String> requestEntity = new HttpEntity<>(headers);
+
+		ResponseEntity<String> response = restTemplateWithSignature.exchange(getLocalhostUrl() + "/verifysignature", HttpMethod.GET, requestEntity, String.class);
+
+		assertEquals(response.getStatusCode(), HttpStatus.OK);
+		assertEquals(response.getBody(), "OK");
+	}
+
+	@Test
+	void testStreamingSigningPOST() throws Exception {
+		byte[] body = new byte[4 * 1024 * 1024];
+		Arrays.fill(body, (byte) 'a');
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+		HttpEntity<Resource> requestEntity = new HttpEntity<>(new ByteArrayResource(body), headers);
+
+		ResponseEntity<String> response = restTemplateWithStreamingSignature.exchange(getLocalhostUrl() + "/verifysignature", HttpMethod.POST, requestEntity, String.class);
+
+		assertEquals(response.getStatusCode(), HttpStatus.OK);
+		assertEquals(response.getBody(), "OK");
+	}
+
+	@Test
+	void testVerifyBatch() throws Exception {
+		String records = "{\"id\":\"a\",\"method\":\"POST\",\"uri\":\"http://localhost:8080/verifysignature\",\"body\":\"{\\\"hello\\\": \\\"world\\\"}\",\"headers\":{"
+				+ "\"Content-Digest\":\"sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:\","
+				+ "\"Signature-Input\":\"sig1=(\\\"content-digest\\\" \\\"x-ebay-signature-key\\\" \\\"@method\\\" \\\"@path\\\" \\\"@authority\\\");created=1658440308\","
+				+ "\"Signature\":\"sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:\","
+				+ "\"x-ebay-signature-key\":\"eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw\"}}\n"
+				+ "{\"id\":\"b\",\"method\":\"POST\",\"uri\":\"http://localhost:8080/verifysignature\",\"body\":\"tampered\",\"headers\":{}}\n";
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+		HttpEntity<String> requestEntity = new HttpEntity<>(records, headers);
+
+		ResponseEntity<String> response = new RestTemplate().exchange(getLocalhostUrl() + SignatureController.BATCH_PATH, HttpMethod.POST, requestEntity, String.class);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("{\"line\":1,\"id\":\"a\",\"verified\":true}\n"
+				+ "{\"line\":2,\"id\":\"b\",\"verified\":false,\"error\":\"Signature-Input header missing\"}\n", response.getBody());
+	}
+
+	@Test
+	void testPrometheusMetrics() throws Exception {
+		restTemplateWithSignature.exchange(getLocalhostUrl() + "/verifysignature", HttpMethod.GET, new HttpEntity<>(new HttpHeaders()), String.class);
+
+		String metrics = new RestTemplate().getForObject(getLocalhostUrl() + "/actuator/prometheus", String.class);
+
+		assertTrue(metrics.contains("signature_verification_seconds_count{algorithm=\"Ed25519\",outcome=\"success\",reason=\"none\",}"), metrics);
+		assertTrue(metrics.contains("signature_verification_stage_seconds_bucket{algorithm=\"Ed25519\",stage=\"signature\""), metrics);
+		assertTrue(metrics.contains("cache_gets_total{cache=\"signature-keys\",result=\"hit\",}"), metrics);
+	}
+}
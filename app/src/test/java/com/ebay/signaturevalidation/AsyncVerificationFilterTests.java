@@ -0,0 +1,131 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class AsyncVerificationFilterTests {
+
+    private static final String BODY = "{\"hello\": \"world\"}";
+
+    private CryptoExecutor cryptoExecutor;
+    private VerificationService verificationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        cryptoExecutor = new CryptoExecutor(1, 1);
+        verificationService = VerificationService.builder(new KeypairService(), cryptoExecutor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testVerifiedRequestIsDispatched() throws Exception {
+        MockHttpServletRequest request = signedRequest(BODY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        newFilter().doFilter(request, response, chain);
+        awaitCompletion(request);
+
+        Assertions.assertNull(chain.getRequest());
+        Assertions.assertEquals(Boolean.TRUE, request.getAttribute(AsyncVerificationFilter.VERIFIED_ATTRIBUTE));
+        Assertions.assertNotNull(((MockAsyncContext) request.getAsyncContext()).getDispatchedPath());
+    }
+
+    @Test
+    void testTamperedBodyIsRejected() throws Exception {
+        MockHttpServletRequest request = signedRequest("{\"hello\": \"there\"}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newFilter().doFilter(request, response, new MockFilterChain());
+        awaitCompletion(request);
+
+        Assertions.assertEquals(403, response.getStatus());
+        Assertions.assertTrue(response.getContentAsString().contains("Content-Digest value is invalid"));
+        Assertions.assertNull(request.getAttribute(AsyncVerificationFilter.VERIFIED_ATTRIBUTE));
+    }
+
+    @Test
+    void testFullQueueIsShed() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<Object> busy = cryptoExecutor.submit(() -> {
+            running.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        running.await(10, TimeUnit.SECONDS);
+        CompletableFuture<Object> queued = cryptoExecutor.submit(() -> null);
+
+        try {
+            MockHttpServletRequest request = signedRequest(BODY);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            newFilter().doFilter(request, response, new MockFilterChain());
+
+            Assertions.assertEquals(503, response.getStatus());
+            Assertions.assertEquals("2", response.getHeader("Retry-After"));
+        } finally {
+            release.countDown();
+            busy.get(10, TimeUnit.SECONDS);
+            queued.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testDisabledFilterPassesRequestOn() throws Exception {
+        MockHttpServletRequest request = signedRequest(BODY);
+        MockFilterChain chain = new MockFilterChain();
+
+        new AsyncVerificationFilter(verificationService, cryptoExecutor, false, 2)
+                .doFilter(request, new MockHttpServletResponse(), chain);
+
+        Assertions.assertSame(request, chain.getRequest());
+        Assertions.assertFalse(request.isAsyncStarted());
+    }
+
+    private AsyncVerificationFilter newFilter() {
+        return new AsyncVerificationFilter(verificationService, cryptoExecutor, true, 2);
+    }
+
+    /**
+     * Waits until the filter has either dispatched or completed the request.
+     */
+    private static void awaitCompletion(MockHttpServletRequest request) throws InterruptedException {
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (request.isAsyncStarted() && asyncContext.getDispatchedPath() == null) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Request neither dispatched nor completed");
+            Thread.sleep(5);
+        }
+    }
+
+    private static MockHttpServletRequest signedRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setServerPort(8080);
+        request.setServletPath("/verifysignature");
+        request.setAsyncSupported(true);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader("Signature-Input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308");
+        request.addHeader("Content-Digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:");
+        request.addHeader("Signature", "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:");
+        request.addHeader("x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw");
+        return request;
+    }
+}
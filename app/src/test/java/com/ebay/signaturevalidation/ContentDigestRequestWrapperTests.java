@@ -0,0 +1,102 @@
+package com.ebay.signaturevalidation;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ContentDigestRequestWrapperTests {
+
+    @Test
+    void testReplayInMemory() throws Exception {
+        byte[] body = randomBody(512);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setContent(body);
+
+        try (ContentDigestRequestWrapper wrapper = new ContentDigestRequestWrapper(request, 1024)) {
+            Assertions.assertArrayEquals(body, IOUtils.toByteArray(wrapper.getInputStream()));
+            Assertions.assertArrayEquals(body, IOUtils.toByteArray(wrapper.getInputStream()));
+        }
+    }
+
+    @Test
+    void testReplaySpilledToDisk() throws Exception {
+        byte[] body = randomBody(256 * 1024);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setContent(body);
+
+        try (ContentDigestRequestWrapper wrapper = new ContentDigestRequestWrapper(request, 1024)) {
+            Assertions.assertArrayEquals(body, IOUtils.toByteArray(wrapper.getInputStream()));
+            Assertions.assertArrayEquals(body, IOUtils.toByteArray(wrapper.getInputStream()));
+        }
+    }
+
+    @Test
+    void testReplayAfterPartialRead() throws Exception {
+        byte[] body = randomBody(64 * 1024);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setContent(body);
+
+        try (ContentDigestRequestWrapper wrapper = new ContentDigestRequestWrapper(request, 1024)) {
+            InputStream first = wrapper.getInputStream();
+            Assertions.assertEquals(100, first.read(new byte[100]));
+
+            Assertions.assertArrayEquals(body, IOUtils.toByteArray(wrapper.getInputStream()));
+        }
+    }
+
+    @Test
+    void testReplayWithReadListener() throws Exception {
+        byte[] body = randomBody(4096);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setContent(body);
+        request.setAsyncSupported(true);
+
+        try (ContentDigestRequestWrapper wrapper = new ContentDigestRequestWrapper(request, 1024)) {
+            IOUtils.toByteArray(wrapper.getInputStream());
+            ServletInputStream replay = wrapper.getInputStream();
+            Assertions.assertThrows(IllegalStateException.class, () -> replay.setReadListener(null));
+
+            wrapper.startAsync();
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            AtomicBoolean allDataRead = new AtomicBoolean();
+            replay.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[1000];
+                    int len;
+                    while (replay.isReady() && (len = replay.read(buffer)) != -1) {
+                        read.write(buffer, 0, len);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    Assertions.fail(t);
+                }
+            });
+
+            Assertions.assertTrue(allDataRead.get());
+            Assertions.assertArrayEquals(body, read.toByteArray());
+        }
+    }
+
+    private byte[] randomBody(int size) {
+        byte[] body = new byte[size];
+        new Random(size).nextBytes(body);
+        return body;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+class LoadGeneratorTests {
+
+    private CryptoExecutor cryptoExecutor;
+    private VerificationServer server;
+    private SignatureService signatureService;
+    private HttpComponentsClientHttpRequestFactory requestFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeypairService keypairService = new KeypairService("Ed25519", "keys/");
+        signatureService = new SignatureService(keypairService);
+        cryptoExecutor = new CryptoExecutor(0, 1024);
+        VerificationService verificationService = VerificationService.builder(keypairService, cryptoExecutor).build();
+        server = new VerificationServer(verificationService, new InetSocketAddress("localhost", 0), 2);
+        server.start();
+        requestFactory = LoadGenerator.pooledRequestFactory(2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        requestFactory.destroy();
+        server.stop();
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testParseMix() {
+        List<LoadGenerator.RequestKind> kinds = LoadGenerator.parseMix("GET=1,POST=3", "1024,65536");
+        Assertions.assertEquals(3, kinds.size());
+        Assertions.assertEquals("GET", kinds.get(0).toString());
+        Assertions.assertEquals("POST 1024 B", kinds.get(1).toString());
+        Assertions.assertEquals(1.5, kinds.get(2).getWeight());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parseMix("GET", "0"));
+    }
+
+    @Test
+    void testSignedRoundTrip() throws Exception {
+        String report = run(LoadGenerator.signingClient(requestFactory, signatureService), 0);
+        Assertions.assertTrue(report.contains("failed: 0"), report);
+        Assertions.assertFalse(report.contains("Errors:"), report);
+        Assertions.assertTrue(report.contains("POST 1024 B"), report);
+    }
+
+    @Test
+    void testCountsRejectedRequests() throws Exception {
+        String report = run(new RestTemplate(requestFactory), 0);
+        Assertions.assertTrue(report.contains("Succeeded: 0"), report);
+        Assertions.assertTrue(report.contains("HTTP 403"), report);
+    }
+
+    @Test
+    void testFixedRate() throws Exception {
+        String report = run(LoadGenerator.signingClient(requestFactory, signatureService), 20);
+        Assertions.assertTrue(report.contains("Sent 10 requests"), report);
+    }
+
+    @Test
+    void testRequestsAreNotReplays() throws Exception {
+        KeypairService keypairService = new KeypairService("Ed25519", "keys/");
+        VerificationService verificationService = VerificationService.builder(keypairService, cryptoExecutor)
+                .replayCache(new ReplayCache(true, 300, 30))
+                .build();
+        VerificationServer replayProtected = new VerificationServer(verificationService, new InetSocketAddress("localhost", 0), 2);
+        replayProtected.start();
+        try {
+            String report = run(LoadGenerator.signingClient(requestFactory, signatureService), replayProtected, "POST=1", 0);
+            Assertions.assertTrue(report.contains("failed: 0"), report);
+        } finally {
+            replayProtected.stop();
+        }
+    }
+
+    private String run(RestTemplate client, double rate) throws Exception {
+        return run(client, server, "GET=1,POST=1", rate);
+    }
+
+    private String run(RestTemplate client, VerificationServer server, String mix, double rate) throws Exception {
+        URI uri = URI.create("http://localhost:" + server.getPort() + VerificationServer.PATH);
+        LoadGenerator generator = new LoadGenerator(client, uri, LoadGenerator.parseMix(mix, "1024"), 2,
+                rate, Duration.ZERO, Duration.ofMillis(500));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.run(new PrintStream(out, true, StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
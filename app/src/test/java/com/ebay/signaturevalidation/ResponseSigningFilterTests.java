@@ -0,0 +1,144 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ResponseSigningFilterTests {
+
+    private static final String BODY = "{\"status\": \"received\"}";
+
+    private final URI uri = URI.create("http://localhost:8080/verifysignature");
+
+    private CryptoExecutor cryptoExecutor;
+    private VerificationService verificationService;
+    private ResponseSigningFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeypairService keypairService = new KeypairService("Ed25519");
+        cryptoExecutor = new CryptoExecutor(1, 16);
+        verificationService = VerificationService.builder(keypairService, cryptoExecutor).build();
+        filter = new ResponseSigningFilter(new SignatureService(keypairService), true, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testSignsWrittenResponse() throws Exception {
+        MockHttpServletResponse response = send((request, res) -> {
+            res.setContentType("application/json");
+            res.getWriter().write(BODY);
+            res.flushBuffer();
+        });
+
+        Assertions.assertEquals(BODY, response.getContentAsString());
+        Assertions.assertEquals(BODY.length(), response.getContentLength());
+        Assertions.assertTrue(response.getHeader("Signature-Input").startsWith("sig1=(\"@status\" \"content-digest\" \"x-ebay-signature-key\")"),
+                response.getHeader("Signature-Input"));
+        verify(response, 200);
+    }
+
+    @Test
+    void testStreamsLargeResponseThroughSpool() throws Exception {
+        byte[] body = new byte[256 * 1024];
+        new Random(1).nextBytes(body);
+        MockHttpServletResponse response = send((request, res) -> {
+            OutputStream out = res.getOutputStream();
+            for (int offset = 0; offset < body.length; offset += 1000) {
+                out.write(body, offset, Math.min(1000, body.length - offset));
+            }
+        });
+
+        Assertions.assertArrayEquals(body, response.getContentAsByteArray());
+        Assertions.assertEquals(body.length, response.getContentLength());
+        verify(response, 200);
+    }
+
+    @Test
+    void testSignatureCoversStatus() throws Exception {
+        MockHttpServletResponse response = send((request, res) -> {
+            ((HttpServletResponse) res).setStatus(202);
+            res.getWriter().write(BODY);
+        });
+
+        verify(response, 202);
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, () -> verify(response, 200));
+        Assertions.assertEquals(FailureReason.BAD_SIGNATURE, ex.getReason());
+    }
+
+    @Test
+    void testSignsEmptyResponse() throws Exception {
+        MockHttpServletResponse response = send((request, res) -> ((HttpServletResponse) res).setStatus(204));
+
+        Assertions.assertNull(response.getHeader("Content-Digest"));
+        Assertions.assertTrue(response.getHeader("Signature-Input").startsWith("sig1=(\"@status\" \"x-ebay-signature-key\")"));
+        verify(response, 204);
+    }
+
+    @Test
+    void testSendsAsyncResponseUnsigned() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setServletPath("/verifysignature");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<ServletResponse> handlerResponse = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> {
+            Assertions.assertThrows(IllegalStateException.class, () -> res.getOutputStream().setWriteListener(null));
+            req.startAsync();
+            res.getOutputStream().write("started ".getBytes(StandardCharsets.UTF_8));
+            handlerResponse.set(res);
+        });
+        // Written later from another thread, after the filter has returned
+        handlerResponse.get().getOutputStream().write("completed".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals("started completed", response.getContentAsString());
+        Assertions.assertNull(response.getHeader("Signature"));
+    }
+
+    @Test
+    void testRequestCannotCoverStatus() {
+        Map<String, String> headers = Map.of(
+                "signature-input", "sig1=(\"@status\");created=1658440308",
+                "signature", "sig1=:AAAA:",
+                "x-ebay-signature-key", "invalid");
+        Assertions.assertThrows(SignatureException.class, () -> verificationService.verifyMessage("", headers, uri, "GET"));
+    }
+
+    private MockHttpServletResponse send(FilterChain handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/verifysignature");
+        request.setServletPath("/verifysignature");
+        request.setServerPort(8080);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, handler);
+        return response;
+    }
+
+    private void verify(MockHttpServletResponse response, int status) throws SignatureException {
+        Map<String, String> headers = new HashMap<>();
+        for (String name : response.getHeaderNames()) {
+            headers.put(name.toLowerCase(), String.join(", ", response.getHeaders(name)));
+        }
+        verificationService.verifyMessage(new ByteArrayInputStream(response.getContentAsByteArray()),
+                MessageComponents.ofResponse("POST", uri, status, headers));
+    }
+}
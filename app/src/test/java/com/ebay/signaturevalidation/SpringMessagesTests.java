@@ -0,0 +1,79 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class SpringMessagesTests {
+
+    private static final String BODY = "{\"hello\": \"world\"}";
+
+    private CryptoExecutor cryptoExecutor;
+    private SignatureService signatureService;
+    private VerificationService verificationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeypairService keypairService = new KeypairService("Ed25519");
+        cryptoExecutor = new CryptoExecutor(1, 16);
+        signatureService = new SignatureService(keypairService);
+        verificationService = VerificationService.builder(keypairService, cryptoExecutor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testServletRequestComponents() {
+        MockHttpServletRequest request = request("POST", "/verifysignature");
+        request.setQueryString("a=1&b=x%20y");
+        request.addHeader("Accept", "text/plain");
+        request.addHeader("accept", "application/json");
+
+        MessageComponents message = SpringMessages.received(request);
+        URI uri = Tools.getURI(request);
+        Assertions.assertEquals("POST", message.getMethod());
+        Assertions.assertEquals(uri.getAuthority(), message.getAuthority());
+        Assertions.assertEquals(uri.getPath(), message.getPath());
+        Assertions.assertEquals(uri.getScheme(), message.getScheme());
+        Assertions.assertEquals("a=1&b=x y", message.getQuery());
+        Assertions.assertEquals("text/plain, application/json", message.getHeader("accept"));
+        Assertions.assertNull(message.getHeader("content-digest"));
+    }
+
+    @Test
+    void testVerifiesServletRequestWithRepeatedHeaders() throws Exception {
+        MockHttpServletRequest request = request("POST", "/verifysignature");
+        request.addHeader("Accept", "text/plain");
+        request.addHeader("Accept", "application/json");
+        Map<String, List<String>> headers = new HashMap<>();
+        signatureService.signMessage(SignableMessage.of("POST", Tools.getURI(request), headers), BODY.getBytes(StandardCharsets.UTF_8));
+        headers.forEach((name, values) -> values.forEach(value -> request.addHeader(name, value)));
+
+        verificationService.verifyMessage(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)), SpringMessages.received(request));
+
+        // A second Content-Digest line is combined with the first, and its sha-256 member replaces the signed one
+        request.addHeader("Content-Digest", "sha-256=:AAAA:");
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, () -> verificationService.verifyMessage(
+                new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)), SpringMessages.received(request)));
+        Assertions.assertEquals(FailureReason.BAD_DIGEST, ex.getReason());
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setServerPort(8080);
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+class VerificationWebFilterTests {
+
+    private static final String BODY = "{\"hello\": \"world\"}";
+
+    private CryptoExecutor cryptoExecutor;
+    private VerificationWebFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        cryptoExecutor = new CryptoExecutor(2, 16);
+        VerificationService verificationService = VerificationService.builder(new KeypairService(), cryptoExecutor)
+                .build();
+        filter = new VerificationWebFilter(verificationService, cryptoExecutor, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testVerifiedRequestReachesHandlerWithBody() {
+        AtomicReference<String> received = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(signedRequest(Flux.just(buffer(BODY))));
+
+        filter.filter(exchange, readBody(received)).block(Duration.ofSeconds(10));
+
+        Assertions.assertNull(exchange.getResponse().getStatusCode());
+        Assertions.assertEquals(BODY, received.get());
+    }
+
+    @Test
+    void testBodyInSeveralChunks() {
+        AtomicReference<String> received = new AtomicReference<>();
+        Flux<DataBuffer> chunks = Flux.just(buffer(BODY.substring(0, 3)), buffer(BODY.substring(3, 10)), buffer(BODY.substring(10)));
+        MockServerWebExchange exchange = MockServerWebExchange.from(signedRequest(chunks));
+
+        filter.filter(exchange, readBody(received)).block(Duration.ofSeconds(10));
+
+        Assertions.assertNull(exchange.getResponse().getStatusCode());
+        Assertions.assertEquals(BODY, received.get());
+    }
+
+    @Test
+    void testTamperedBodyIsRejected() {
+        AtomicReference<String> received = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(signedRequest(Flux.just(buffer("{\"hello\": \"there\"}"))));
+
+        filter.filter(exchange, readBody(received)).block(Duration.ofSeconds(10));
+
+        Assertions.assertEquals(HttpStatus.FORBIDDEN, exchange.getResponse().getStatusCode());
+        Assertions.assertTrue(exchange.getResponse().getBodyAsString().block().contains("Content-Digest value is invalid"));
+        Assertions.assertNull(received.get());
+    }
+
+    @Test
+    void testOversizedBodyIsRejected() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(signedRequest(Flux.just(buffer("x".repeat(1025)))));
+
+        ResponseStatusException ex = Assertions.assertThrows(ResponseStatusException.class,
+                () -> filter.filter(exchange, readBody(new AtomicReference<>())).block(Duration.ofSeconds(10)));
+
+        Assertions.assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ex.getStatus());
+    }
+
+    private static MockServerHttpRequest signedRequest(Flux<DataBuffer> body) {
+        return MockServerHttpRequest.post("http://localhost:8080/verifysignature")
+                .header("Content-Type", "application/json")
+                .header("Signature-Input", "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308")
+                .header("Content-Digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:")
+                .header("Signature", "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:")
+                .header("x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw")
+                .body(body);
+    }
+
+    private static WebFilterChain readBody(AtomicReference<String> received) {
+        return exchange -> DataBufferUtils.join(exchange.getRequest().getBody())
+                .doOnNext(buffer -> {
+                    received.set(buffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(buffer);
+                })
+                .then(Mono.empty());
+    }
+
+    private static DataBuffer buffer(String content) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ebay.signaturevalidation;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Starts the signing and verification services the way the application wires them, for a given key algorithm.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private final CryptoExecutor cryptoExecutor;
+    private final SignatureService signatureService;
+    private final VerificationService verificationService;
+
+    private BenchmarkContext(String algorithm) throws SignatureException {
+        // The services log every message at info level; that would dominate the measurements
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.ebay.signaturevalidation")).setLevel(Level.WARN);
+
+        KeypairService keypairService = new KeypairService(algorithm);
+        cryptoExecutor = new CryptoExecutor(0, 1024);
+        signatureService = new SignatureService(keypairService);
+        verificationService = VerificationService.builder(keypairService, cryptoExecutor).build();
+    }
+
+    static BenchmarkContext start(String algorithm) throws SignatureException {
+        return new BenchmarkContext(algorithm);
+    }
+
+    SignatureService getSignatureService() {
+        return signatureService;
+    }
+
+    VerificationService getVerificationService() {
+        return verificationService;
+    }
+
+    @Override
+    public void close() {
+        cryptoExecutor.shutdown();
+    }
+
+    static byte[] randomBody(int size) {
+        byte[] body = new byte[size];
+        new Random(size).nextBytes(body);
+        return body;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks once for each thread count in the jmh.threads system property, for example
+ * {@code -Djmh.threads=1,4,max}, and writes the results of all runs into one result file. Without the property, the
+ * arguments are passed to the JMH launcher unchanged.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String threadCounts = System.getProperty("jmh.threads", "").trim();
+        if (threadCounts.isEmpty()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        List<RunResult> results = new ArrayList<>();
+        for (String threadCount : threadCounts.split(",")) {
+            String value = threadCount.trim();
+            int threads = value.equalsIgnoreCase("max") ? Threads.MAX : Integer.parseInt(value);
+            results.addAll(new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.TEXT)
+                    .result("target/jmh-result-" + value + "-threads.txt")
+                    .build()).run());
+        }
+
+        ResultFormatType format = commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+        String file = commandLine.getResult().orElse("target/jmh-result." + format.name().toLowerCase());
+        ResultFormatFactory.getInstance(format, file).writeOut(results);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-Digest hashing as the signing and verification services do it: the body is read from a stream in 8 KiB
+ * chunks and fed to the digest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentDigestBenchmark {
+
+    @Param({"SHA-256", "SHA-512"})
+    private String cipher;
+
+    @Param({"0", "1024", "65536", "1048576", "10485760"})
+    private int bodySize;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = BenchmarkContext.randomBody(bodySize);
+    }
+
+    @Benchmark
+    public byte[] digest() throws IOException, NoSuchAlgorithmException {
+        MessageDigest messageDigest = MessageDigest.getInstance(cipher);
+        InputStream in = new ByteArrayInputStream(body);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, read);
+        }
+        return messageDigest.digest();
+    }
+}
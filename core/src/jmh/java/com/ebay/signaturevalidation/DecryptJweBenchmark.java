@@ -0,0 +1,49 @@
+package com.ebay.signaturevalidation;
+
+import com.nimbusds.jwt.EncryptedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KeypairService#decryptJWE}: the cost of a key cache miss. The JWE carries an Ed25519 or a 2048-bit RSA
+ * public key, which changes the size of the compressed payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecryptJweBenchmark {
+
+    @Param({"Ed25519", "RSA"})
+    private String algorithm;
+
+    private KeypairService keypairService;
+    private String jwe;
+
+    @Setup
+    public void setup() throws SignatureException {
+        Security.addProvider(new BouncyCastleProvider());
+        keypairService = new KeypairService(algorithm);
+        jwe = keypairService.getJWE(keypairService.loadExistingKeyPair().getPublic());
+    }
+
+    @Benchmark
+    public EncryptedJWT decryptJWE() throws SignatureException {
+        return keypairService.decryptJWE(jwe);
+    }
+}
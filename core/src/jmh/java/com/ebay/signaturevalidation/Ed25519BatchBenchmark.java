@@ -0,0 +1,89 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares verifying a batch of valid Ed25519 signatures one by one, as {@link PreparedVerifier} does, and with
+ * {@link Ed25519BatchVerification}. Scores are per batch; divide by the batch size for the time per signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Ed25519BatchBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int batchSize;
+
+    @Param({"1", "16"})
+    private int keys;
+
+    private byte[][] publicKeys;
+    private byte[][] messages;
+    private byte[][] signatures;
+    private Ed25519BatchVerification.PreparedKey[] batchKeys;
+
+    @Setup
+    public void setup() {
+        Ed25519.precompute();
+        SecureRandom random = new SecureRandom();
+        byte[][] privateKeys = new byte[keys][Ed25519.SECRET_KEY_SIZE];
+        Ed25519BatchVerification.PreparedKey[] preparedKeys = new Ed25519BatchVerification.PreparedKey[keys];
+        byte[][] encodedKeys = new byte[keys][Ed25519.PUBLIC_KEY_SIZE];
+        for (int k = 0; k < keys; k++) {
+            random.nextBytes(privateKeys[k]);
+            Ed25519.generatePublicKey(privateKeys[k], 0, encodedKeys[k], 0);
+            preparedKeys[k] = Ed25519BatchVerification.prepareKey(encodedKeys[k]);
+        }
+
+        publicKeys = new byte[batchSize][];
+        messages = new byte[batchSize][];
+        signatures = new byte[batchSize][Ed25519.SIGNATURE_SIZE];
+        batchKeys = new Ed25519BatchVerification.PreparedKey[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            publicKeys[i] = encodedKeys[i % keys];
+            messages[i] = ("\"@method\": POST\n\"@path\": /verifysignature\n\"@signature-params\": ();created=" + i)
+                    .getBytes(StandardCharsets.UTF_8);
+            Ed25519.sign(privateKeys[i % keys], 0, messages[i], 0, messages[i].length, signatures[i], 0);
+            batchKeys[i] = preparedKeys[i % keys];
+        }
+    }
+
+    @Benchmark
+    public boolean individually() {
+        boolean verified = true;
+        for (int i = 0; i < batchSize; i++) {
+            verified &= Ed25519.verify(signatures[i], 0, publicKeys[i], 0, messages[i], 0, messages[i].length);
+        }
+        return verified;
+    }
+
+    @Benchmark
+    public boolean batch() {
+        List<Ed25519BatchVerification.Item> items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            items.add(new Ed25519BatchVerification.Item(batchKeys[i], messages[i], 0, messages[i].length,
+                    signatures[i]));
+        }
+        return Ed25519BatchVerification.verify(items);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.signers.RSADigestSigner;
+import org.bouncycastle.crypto.util.PrivateKeyFactory;
+import org.bouncycastle.crypto.util.PublicKeyFactory;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares signature verification through {@link PreparedVerifier} with decoding the public key on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreparedVerifierBenchmark {
+
+    @Param({"Ed25519", "RSA"})
+    private String algorithm;
+
+    private final byte[] base = ("\"content-digest\": sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:\n"
+            + "\"@method\": POST\n"
+            + "\"@path\": /verifysignature\n"
+            + "\"@authority\": localhost:8080\n"
+            + "\"@signature-params\": (\"content-digest\" \"@method\" \"@path\" \"@authority\");created=1658440308")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private PublicKey publicKey;
+    private PreparedVerifier preparedVerifier;
+    private byte[] signature;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPair keyPair = new KeypairService().loadExistingKeyPair(algorithm);
+        publicKey = keyPair.getPublic();
+        preparedVerifier = PreparedVerifier.forPublicKey(publicKey);
+
+        Signer signer = newSigner();
+        signer.init(true, PrivateKeyFactory.createKey(keyPair.getPrivate().getEncoded()));
+        signer.update(base, 0, base.length);
+        signature = signer.generateSignature();
+    }
+
+    @Benchmark
+    public boolean decodeKeyPerCall() throws Exception {
+        AsymmetricKeyParameter publicKeyParameters = PublicKeyFactory.createKey(publicKey.getEncoded());
+        Signer signer = newSigner();
+        signer.init(false, publicKeyParameters);
+        signer.update(base, 0, base.length);
+        return signer.verifySignature(signature);
+    }
+
+    @Benchmark
+    public boolean preparedVerifier() {
+        return preparedVerifier.verify(base, 0, base.length, signature);
+    }
+
+    private Signer newSigner() {
+        if (algorithm.equals("RSA")) {
+            return new RSADigestSigner(new SHA256Digest());
+        }
+        return new Ed25519Signer();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records fresh signatures in {@link ReplayCache} from many threads at once, against a single synchronized
+ * insertion-ordered map as a baseline. Run with different thread counts to see how each scales, for example
+ * {@code -t 1} and {@code -t 8}; scores are records per microsecond across all threads.
+ * <p>
+ * A background thread advances the created time every 10 ms, and the cache keeps 50 ms of signatures, so that the
+ * cache evicts buckets during the run and its size stays bounded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayCacheBenchmark {
+
+    private static final int BASELINE_CAPACITY = 1 << 20;
+
+    private final AtomicInteger threadNumbers = new AtomicInteger();
+    private volatile long tick;
+    private volatile boolean running;
+    private Thread ticker;
+
+    private ReplayCache replayCache;
+    private Set<Long> baseline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        replayCache = new ReplayCache(true, 5, 0, Clock.systemUTC());
+        baseline = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > BASELINE_CAPACITY;
+            }
+        }));
+
+        running = true;
+        ticker = new Thread(() -> {
+            while (running) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                tick++;
+            }
+        }, "ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        ticker.join();
+    }
+
+    @State(Scope.Thread)
+    public static class Signatures {
+        private final byte[] signature = new byte[64];
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void setup(ReplayCacheBenchmark benchmark) {
+            int thread = benchmark.threadNumbers.incrementAndGet();
+            for (int i = 0; i < 4; i++) {
+                signature[i] = (byte) (thread >>> (24 - 8 * i));
+            }
+        }
+
+        byte[] next() {
+            long n = ++counter;
+            for (int i = 0; i < 8; i++) {
+                signature[8 + i] = (byte) (n >>> (56 - 8 * i));
+            }
+            return signature;
+        }
+
+        long nextKey() {
+            return ((long) signature[3] << 56) ^ ++counter;
+        }
+    }
+
+    @Benchmark
+    public void replayCache(Signatures signatures) throws SignatureException {
+        replayCache.record(signatures.next(), tick);
+    }
+
+    @Benchmark
+    public boolean synchronizedMap(Signatures signatures) {
+        return baseline.add(signatures.nextKey());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SignatureService#signMessage}: Content-Digest, signature base and signature for one outgoing request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignBenchmark {
+
+    @Param({"Ed25519", "RSA"})
+    private String algorithm;
+
+    @Param({"0", "1024", "65536", "1048576", "10485760"})
+    private int bodySize;
+
+    private final URI uri = URI.create("http://localhost:8080/verifysignature");
+    private BenchmarkContext context;
+    private SignatureService signatureService;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws SignatureException {
+        context = BenchmarkContext.start(algorithm);
+        signatureService = context.getSignatureService();
+        body = BenchmarkContext.randomBody(bodySize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> signBytes() throws SignatureException {
+        Map<String, List<String>> headers = new HashMap<>();
+        signatureService.signMessage(SignableMessage.of(bodySize > 0 ? "POST" : "GET", uri, headers), body);
+        return headers;
+    }
+
+    @Benchmark
+    public Map<String, List<String>> signStream() throws SignatureException {
+        Map<String, List<String>> headers = new HashMap<>();
+        signatureService.signMessage(SignableMessage.of(bodySize > 0 ? "POST" : "GET", uri, headers), new ByteArrayInputStream(body));
+        return headers;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link SignatureBaseEncoder} with the StringBuilder and getBytes approach it replaced. Run with
+ * {@code -prof gc} to compare the allocation rate per signature base.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBaseBenchmark {
+
+    private SignatureInput signatureInput;
+    private Map<String, String> headers;
+    private final URI uri = URI.create("http://localhost:8080/verifysignature");
+    private MessageComponents message;
+
+    @Setup
+    public void setup() throws SignatureException {
+        signatureInput = StructuredFieldParser.parseSignatureInput(
+                "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308").get(0);
+        headers = Map.of(
+                "content-digest", "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:",
+                "x-ebay-signature-key", "eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw");
+        message = MessageComponents.of("POST", uri, headers);
+        // Touch the lazily decoded URI parts once, as the first signature on a request would
+        uri.getPath();
+        uri.getAuthority();
+    }
+
+    @Benchmark
+    public void stringBuilder(Blackhole blackhole) {
+        StringBuilder buf = new StringBuilder();
+        for (SignatureInput.Component component : signatureInput.getComponents()) {
+            String header = component.getName();
+            buf.append("\"").append(header.toLowerCase()).append("\": ");
+            switch (header.toLowerCase()) {
+                case "@method":
+                    buf.append("POST");
+                    break;
+                case "@authority":
+                    buf.append(uri.getAuthority());
+                    break;
+                case "@path":
+                    buf.append(uri.getPath());
+                    break;
+                default:
+                    buf.append(headers.get(header));
+            }
+            buf.append("\n");
+        }
+        buf.append("\"@signature-params\": ").append(signatureInput.getValue());
+        byte[] base = buf.toString().getBytes(StandardCharsets.UTF_8);
+        blackhole.consume(base);
+    }
+
+    @Benchmark
+    public void encoder(Blackhole blackhole) throws SignatureException {
+        SignatureBaseEncoder encoder = SignatureBaseEncoder.forCurrentThread()
+                .encode(signatureInput.getComponents(), message, signatureInput.getValue());
+        blackhole.consume(encoder.getBuffer());
+        blackhole.consume(encoder.getLength());
+    }
+
+    @Benchmark
+    public void plan(Blackhole blackhole) throws SignatureException {
+        SignatureBaseEncoder encoder = SignatureBaseEncoder.forCurrentThread()
+                .encode(signatureInput.getPlan(), message, signatureInput.getValue());
+        blackhole.consume(encoder.getBuffer());
+        blackhole.consume(encoder.getLength());
+    }
+}
@@ -0,0 +1,87 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link StructuredFieldParser} with the regular expressions VerificationService used before, on the
+ * Signature-Input, Signature and Content-Digest headers of one request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredFieldParserBenchmark {
+
+    private final Pattern signatureInputPattern = Pattern.compile(".+=(\\((.+)\\);created=(\\d+)(;keyid=.+)?)");
+    private final Pattern signaturePattern = Pattern.compile(".+=:(.+):");
+    private final Pattern contentDigestPattern = Pattern.compile("(.+)=:(.+):");
+
+    /**
+     * Number of components in Signature-Input. Long headers make the greedy regular expressions backtrack.
+     */
+    @Param({"5", "40"})
+    private int components;
+
+    private String signatureInputHeader;
+    private final String signatureHeader = "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:";
+    private final String contentDigestHeader = "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:";
+
+    @Setup
+    public void setup() {
+        StringBuilder buf = new StringBuilder("sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\"");
+        for (int i = 5; i < components; i++) {
+            buf.append(" \"x-custom-header-").append(i).append('"');
+        }
+        buf.append(");created=1658440308;keyid=\"test-key-ed25519\"");
+        signatureInputHeader = buf.toString();
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        Matcher signatureInputMatcher = signatureInputPattern.matcher(signatureInputHeader);
+        signatureInputMatcher.find();
+        String signatureInput = signatureInputMatcher.group(2).replaceAll("\"", "");
+        blackhole.consume(List.of(signatureInput.split(" ")));
+        blackhole.consume(signatureInputMatcher.group(1));
+
+        Matcher signatureMatcher = signaturePattern.matcher(signatureHeader);
+        signatureMatcher.find();
+        blackhole.consume(signatureMatcher.group(1));
+
+        Matcher contentDigestMatcher = contentDigestPattern.matcher(contentDigestHeader);
+        contentDigestMatcher.find();
+        blackhole.consume(contentDigestMatcher.group(1));
+        blackhole.consume(contentDigestMatcher.group(2));
+    }
+
+    @Benchmark
+    public void structuredFieldParser(Blackhole blackhole) throws SignatureException {
+        List<SignatureInput> signatureInputs = StructuredFieldParser.parseSignatureInput(signatureInputHeader);
+        blackhole.consume(signatureInputs);
+
+        Map<String, String> signatures = StructuredFieldParser.parseByteSequenceDictionary(signatureHeader, "Signature");
+        blackhole.consume(signatures.get("sig1"));
+
+        Map<String, String> contentDigests = StructuredFieldParser.parseByteSequenceDictionary(contentDigestHeader, "Content-Digest");
+        blackhole.consume(contentDigests.get("sha-256"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ebay.signaturevalidation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VerificationService#verifyMessage}: header parsing, key lookup, Content-Digest and signature for one
+ * incoming request. The x-ebay-signature-key JWE is decrypted once and then served from the key cache, as it is for
+ * a client sending repeated requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifyBenchmark {
+
+    @Param({"Ed25519", "RSA"})
+    private String algorithm;
+
+    @Param({"0", "1024", "65536", "1048576", "10485760"})
+    private int bodySize;
+
+    private final URI uri = URI.create("http://localhost:8080/verifysignature");
+    private BenchmarkContext context;
+    private VerificationService verificationService;
+    private byte[] body;
+    private String method;
+    private Map<String, String> headers;
+
+    @Setup
+    public void setup() throws SignatureException {
+        context = BenchmarkContext.start(algorithm);
+        verificationService = context.getVerificationService();
+        body = BenchmarkContext.randomBody(bodySize);
+        method = bodySize > 0 ? "POST" : "GET";
+
+        Map<String, List<String>> signed = new HashMap<>();
+        context.getSignatureService().signMessage(SignableMessage.of(method, uri, signed), body);
+        headers = new HashMap<>();
+        signed.forEach((name, values) -> headers.put(name, values.get(0)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void verify() throws SignatureException {
+        verificationService.verifyMessage(new ByteArrayInputStream(body), headers, uri, method);
+    }
+}
@@ -0,0 +1,127 @@
+package com.ebay.signaturevalidation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Verifies a stream of captured requests, one {@link CapturedRequest} JSON record per line (NDJSON), and writes one
+ * result line per record in input order. The record id, if any, is copied to the result. Results look like
+ * {@code {"line":1,"id":"a","verified":true}} or
+ * {@code {"line":2,"verified":false,"error":"Signature invalid for label sig1"}}.
+ * <p>
+ * Records are verified in parallel on the crypto pool. At most {@code maxInFlight} records are read ahead of the
+ * oldest unfinished one, so memory use does not depend on the size of the batch.
+ */
+class BatchVerification {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final VerificationService verificationService;
+    private final CryptoExecutor cryptoExecutor;
+    private final int maxInFlight;
+
+    BatchVerification(VerificationService verificationService, CryptoExecutor cryptoExecutor, int maxInFlight) {
+        this.verificationService = verificationService;
+        this.cryptoExecutor = cryptoExecutor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @return the number of lines read
+     */
+    long run(InputStream records, OutputStream results) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(records, StandardCharsets.UTF_8));
+        JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(results);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Records are separated by the newline written after each one, not by the default space
+        generator.setRootValueSeparator(null);
+
+        ArrayDeque<CompletableFuture<Result>> inFlight = new ArrayDeque<>(maxInFlight);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (inFlight.size() >= maxInFlight) {
+                writeResult(generator, inFlight.removeFirst());
+            }
+            long recordLine = lineNumber;
+            String record = line;
+            inFlight.addLast(cryptoExecutor.submitOrRun(() -> verifyRecord(recordLine, record)));
+        }
+
+        while (!inFlight.isEmpty()) {
+            writeResult(generator, inFlight.removeFirst());
+        }
+        generator.flush();
+        return lineNumber;
+    }
+
+    private Result verifyRecord(long line, String record) {
+        String id = null;
+        try {
+            CapturedRequest request = CapturedRequest.parse(record);
+            id = request.getId();
+            verificationService.verifyCaptured(request);
+            return new Result(line, id, null);
+        } catch (SignatureException ex) {
+            return new Result(line, id, ex.getMessage());
+        } catch (RuntimeException ex) {
+            return new Result(line, id, "Invalid record: " + ex.getMessage());
+        }
+    }
+
+    private static void writeResult(JsonGenerator generator, CompletableFuture<Result> future) throws IOException {
+        if (!future.isDone()) {
+            // Let the client see the results so far while we wait
+            generator.flush();
+        }
+
+        Result result;
+        try {
+            result = future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying batch", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error verifying batch: " + ex.getCause().getMessage(), ex.getCause());
+        }
+
+        generator.writeStartObject();
+        generator.writeNumberField("line", result.line);
+        if (result.id != null) {
+            generator.writeStringField("id", result.id);
+        }
+        generator.writeBooleanField("verified", result.error == null);
+        if (result.error != null) {
+            generator.writeStringField("error", result.error);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static final class Result {
+        private final long line;
+        private final String id;
+        private final String error;
+
+        private Result(long line, String id, String error) {
+            this.line = line;
+            this.id = id;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.util.encoders.Base64;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+/**
+ * Hashes a message body incrementally, in whatever chunks it arrives, and checks it against the Content-Digest header.
+ * <p>
+ * The header is only required, and only parsed, once the body turns out not to be empty. Header errors are reported by
+ * {@link #verify()}, so that {@link #update} can be called from code that cannot handle exceptions, such as a reactive
+ * pipeline. Instances are not thread-safe.
+ */
+public final class BodyDigest {
+
+    private final String contentDigest;
+    private MessageDigest messageDigest;
+    private String expectedDigest;
+    private SignatureException error;
+    private long length;
+
+    /**
+     * @param contentDigest the Content-Digest header, or null if the message has none
+     */
+    public BodyDigest(String contentDigest) {
+        this.contentDigest = contentDigest;
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        if (length == 0 || !start(length)) {
+            return;
+        }
+        messageDigest.update(bytes, offset, length);
+    }
+
+    public void update(ByteBuffer buffer) {
+        if (!buffer.hasRemaining() || !start(buffer.remaining())) {
+            return;
+        }
+        messageDigest.update(buffer);
+    }
+
+    /**
+     * The number of body bytes seen so far.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Checks the body hashed so far against the Content-Digest header. An empty body needs no header.
+     */
+    public void verify() throws SignatureException {
+        if (length == 0) {
+            return;
+        }
+        if (error != null) {
+            throw error;
+        }
+
+        String newDigest = new String(Base64.encode(messageDigest.digest()));
+        if (!newDigest.equals(expectedDigest)) {
+            throw new SignatureException(FailureReason.BAD_DIGEST, "Content-Digest value is invalid. Expected body digest is: " + newDigest);
+        }
+    }
+
+    /**
+     * Counts the bytes and, on the first non-empty chunk, sets up the digest. Returns false if the header is unusable.
+     */
+    private boolean start(int chunkLength) {
+        length += chunkLength;
+        if (messageDigest != null) {
+            return true;
+        }
+        if (error != null) {
+            return false;
+        }
+
+        try {
+            if (contentDigest == null) {
+                throw new SignatureException(FailureReason.MISSING_HEADER, "Content-Digest header missing");
+            }
+
+            Map<String, String> contentDigests = StructuredFieldParser.parseByteSequenceDictionary(contentDigest, "Content-Digest");
+            String cipher = null;
+            for (String algorithm : contentDigests.keySet()) {
+                if (algorithm.equals("sha-256") || algorithm.equals("sha-512")) {
+                    cipher = algorithm;
+                    break;
+                }
+            }
+            if (cipher == null) {
+                throw new SignatureException(FailureReason.MALFORMED_HEADER, "Invalid cipher " + String.join(", ", contentDigests.keySet()));
+            }
+
+            expectedDigest = contentDigests.get(cipher);
+            messageDigest = MessageDigest.getInstance(cipher.toUpperCase());
+            return true;
+        } catch (SignatureException ex) {
+            error = ex;
+        } catch (NoSuchAlgorithmException ex) {
+            error = new SignatureException("Error creating message digest: " + ex.getMessage(), ex);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ebay.signaturevalidation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A recorded signed request, as read from one line of a capture file.
+ * <p>
+ * A record has the fields {@code method}, {@code uri}, {@code headers} (an object of header name to value) and
+ * optionally {@code body} (text, encoded as UTF-8) or {@code bodyBase64}, plus an optional {@code id}.
+ */
+public final class CapturedRequest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String id;
+    private final String method;
+    private final URI uri;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    private CapturedRequest(String id, String method, URI uri, Map<String, String> headers, byte[] body) {
+        this.id = id;
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Parses one record.
+     *
+     * @throws SignatureException if the line is not a valid record
+     */
+    public static CapturedRequest parse(String line) throws SignatureException {
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(line);
+        } catch (IOException ex) {
+            throw new SignatureException("Invalid record: " + ex.getMessage(), ex);
+        }
+        if (node == null || !node.isObject()) {
+            throw new SignatureException("Invalid record: not a JSON object");
+        }
+
+        String id = node.hasNonNull("id") ? node.get("id").asText() : null;
+        try {
+            String method = requiredText(node, "method");
+            URI uri = URI.create(requiredText(node, "uri"));
+
+            JsonNode headersNode = node.get("headers");
+            if (headersNode == null || !headersNode.isObject()) {
+                throw new SignatureException("Invalid record: no headers object");
+            }
+            Map<String, String> headers = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = headersNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> header = fields.next();
+                headers.put(header.getKey().toLowerCase(), header.getValue().asText());
+            }
+
+            byte[] body = new byte[0];
+            if (node.hasNonNull("bodyBase64")) {
+                body = Base64.getDecoder().decode(node.get("bodyBase64").asText());
+            } else if (node.hasNonNull("body")) {
+                body = node.get("body").asText().getBytes(StandardCharsets.UTF_8);
+            }
+
+            return new CapturedRequest(id, method, uri, headers, body);
+        } catch (IllegalArgumentException ex) {
+            throw new SignatureException("Invalid record: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String requiredText(JsonNode node, String field) throws SignatureException {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new SignatureException("Invalid record: no " + field);
+        }
+        return value.asText();
+    }
+
+    /**
+     * The record id, or null.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * The header fields, keyed by lowercase name.
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ebay.signaturevalidation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A covered component list compiled for {@link SignatureBaseEncoder}: one pre-resolved extractor per component and
+ * the UTF-8 bytes of its {@code "name": } prefix.
+ * <p>
+ * Compiling checks the component parameters and resolves the derived components (@method, @path, @status, ...) once,
+ * so that encoding a base is a plain loop over the components. Senders reuse the same few component lists, so the
+ * plans of received Signature-Input headers are cached by the text of their inner list; see {@link #forComponents}.
+ */
+public final class ComponentPlan {
+
+    private static final int MAX_CACHED_PLANS = 256;
+
+    private static final Cache<String, ComponentPlan> PLANS = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_PLANS)
+            .build();
+
+    private final byte[][] prefixes;
+    private final Extractor[] extractors;
+
+    private ComponentPlan(byte[][] prefixes, Extractor[] extractors) {
+        this.prefixes = prefixes;
+        this.extractors = extractors;
+    }
+
+    /**
+     * Compiles a component list, without caching the plan.
+     *
+     * @throws SignatureException if a component has parameters or is an unknown derived component
+     */
+    public static ComponentPlan compile(List<SignatureInput.Component> components) throws SignatureException {
+        int n = components.size();
+        byte[][] prefixes = new byte[n][];
+        Extractor[] extractors = new Extractor[n];
+        for (int i = 0; i < n; i++) {
+            SignatureInput.Component component = components.get(i);
+            String name = component.getName();
+            if (!component.getParameters().isEmpty()) {
+                throw new SignatureException(FailureReason.MALFORMED_HEADER, "Unsupported parameters on component " + component);
+            }
+
+            String lowerCaseName = lowerCase(name);
+            prefixes[i] = ("\"" + lowerCaseName + "\": ").getBytes(StandardCharsets.UTF_8);
+            extractors[i] = name.startsWith("@") ? derivedComponent(name) : header(lowerCaseName);
+        }
+        return new ComponentPlan(prefixes, extractors);
+    }
+
+    /**
+     * Returns the cached plan of a component list, compiling it on first use. A list that does not compile is not
+     * cached.
+     *
+     * @param componentList the inner list as it appears in Signature-Input, such as {@code ("@method" "@path")}
+     */
+    public static ComponentPlan forComponents(String componentList, List<SignatureInput.Component> components) throws SignatureException {
+        ComponentPlan plan = PLANS.getIfPresent(componentList);
+        if (plan == null) {
+            plan = compile(components);
+            PLANS.put(componentList, plan);
+        }
+        return plan;
+    }
+
+    int size() {
+        return extractors.length;
+    }
+
+    byte[] prefix(int i) {
+        return prefixes[i];
+    }
+
+    String value(int i, MessageComponents message) throws SignatureException {
+        return extractors[i].value(message);
+    }
+
+    private static Extractor derivedComponent(String name) throws SignatureException {
+        // String.valueOf keeps the "null" that earlier versions wrote for a missing URI part, so existing signatures
+        // still verify
+        if (name.equalsIgnoreCase("@method")) {
+            return MessageComponents::getMethod;
+        } else if (name.equalsIgnoreCase("@authority")) {
+            return message -> String.valueOf(message.getAuthority());
+        } else if (name.equalsIgnoreCase("@path")) {
+            return message -> String.valueOf(message.getPath());
+        } else if (name.equalsIgnoreCase("@query")) {
+            return message -> String.valueOf(message.getQuery());
+        } else if (name.equalsIgnoreCase("@scheme")) {
+            return message -> String.valueOf(message.getScheme());
+        } else if (name.equalsIgnoreCase("@target-uri")) {
+            return message -> message.getUri().toString();
+        } else if (name.equalsIgnoreCase("@status")) {
+            return message -> {
+                int status = message.getStatus();
+                if (status == 0) {
+                    throw new SignatureException(FailureReason.MALFORMED_HEADER, "@status covered in the signature of a request");
+                }
+                return String.valueOf(status);
+            };
+        }
+        throw new SignatureException(FailureReason.MALFORMED_HEADER, "Unknown pseudo header " + name);
+    }
+
+    private static Extractor header(String name) {
+        return message -> {
+            String value = message.getHeader(name);
+            if (value == null) {
+                throw new SignatureException(FailureReason.MISSING_HEADER, "Header " + name + " not included in message");
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Lowercases ASCII letters, and anything after the first non-ASCII character with {@link String#toLowerCase()}, as
+     * earlier versions of the encoder did.
+     */
+    private static String lowerCase(String name) {
+        StringBuilder lower = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                return lower.append(name.substring(i).toLowerCase()).toString();
+            }
+            lower.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        return lower.toString();
+    }
+
+    private interface Extractor {
+        String value(MessageComponents message) throws SignatureException;
+    }
+}
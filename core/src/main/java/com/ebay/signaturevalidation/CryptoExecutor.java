@@ -0,0 +1,91 @@
+package com.ebay.signaturevalidation;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, CPU-sized thread pool for signature cryptography.
+ * <p>
+ * The pool has one thread per available processor by default and a bounded queue, so a burst of work cannot pile up
+ * without limit.
+ */
+public class CryptoExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadGroup threadGroup = new ThreadGroup("crypto");
+
+    /**
+     * @param threads       the number of threads, or 0 for one per available processor
+     * @param queueCapacity the maximum number of tasks waiting for a thread
+     */
+    public CryptoExecutor(int threads, int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(threadGroup, runnable, "crypto-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues the task on the pool.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> complete(future, task));
+        return future;
+    }
+
+    /**
+     * Queues the task on the pool, or runs it on the calling thread if the queue is full. A task submitted from a
+     * pool thread also runs inline, so that pool threads never wait for work queued behind them.
+     */
+    public <T> CompletableFuture<T> submitOrRun(Callable<T> task) {
+        if (Thread.currentThread().getThreadGroup() != threadGroup) {
+            try {
+                return submit(task);
+            } catch (RejectedExecutionException ex) {
+                // Run on the calling thread below
+            }
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        complete(future, task);
+        return future;
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Callable<T> task) {
+        try {
+            future.complete(task.call());
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.math.ec.rfc7748.X25519Field;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Randomised batch verification of Ed25519 signatures (RFC 8032, section 8.5 and 5.1.7).
+ * <p>
+ * For signatures (R<sub>i</sub>, s<sub>i</sub>) by keys A<sub>i</sub> over messages M<sub>i</sub>, with
+ * h<sub>i</sub> = SHA-512(R<sub>i</sub> || A<sub>i</sub> || M<sub>i</sub>) and random 128-bit z<sub>i</sub>, the batch
+ * is valid if
+ * <pre>
+ * [8] ( [&Sigma; z<sub>i</sub>s<sub>i</sub>] B - &Sigma; [z<sub>i</sub>] R<sub>i</sub> - &Sigma; [z<sub>i</sub>h<sub>i</sub>] A<sub>i</sub> ) = 0
+ * </pre>
+ * which is checked with one multi-scalar multiplication (interleaved wNAF, sharing the doublings between all terms).
+ * Signatures by the same key share a single A term. If any signature is invalid, the check fails except with
+ * probability 2<sup>-128</sup>. A batch of one signature is checked with z = 1, which is exactly the cofactored
+ * equation [8](sB - R - hA) = 0 for that signature.
+ * <p>
+ * Batching needs the cofactored equation, so it is the rule for every Ed25519 signature: {@link PreparedVerifier}
+ * falls back to {@link #verify(Item)} when BouncyCastle's cofactorless check fails. The two equations only disagree on
+ * signatures whose R or A has a small-order component, which a signer can only produce on purpose, and the cofactored
+ * one accepts them. Encodings are checked as BouncyCastle does: R and A must be canonical points and s below L.
+ * <p>
+ * Field arithmetic uses BouncyCastle's {@link X25519Field}; the curve arithmetic mirrors its Ed25519 implementation.
+ */
+final class Ed25519BatchVerification {
+
+    private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+    private static final BigInteger L = BigInteger.ONE.shiftLeft(252).add(new BigInteger("27742317777372353535851937790883648493"));
+    private static final int[] D = fieldElement(BigInteger.valueOf(-121665).multiply(BigInteger.valueOf(121666).modInverse(P)).mod(P));
+    private static final int[] D2 = fieldElement(BigInteger.valueOf(-121665).multiply(BigInteger.valueOf(121666).modInverse(P)).shiftLeft(1).mod(P));
+
+    private static final int POINT_WINDOW = 5;
+    private static final int BASE_WINDOW = 8;
+    private static final CachedPoint[] BASE_TABLE;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    static {
+        byte[] encodedBase = new byte[32];
+        encodedBase[0] = 0x58;
+        for (int i = 1; i < 32; i++) {
+            encodedBase[i] = 0x66;
+        }
+        BASE_TABLE = oddMultiples(decodePoint(encodedBase, 0, false), BASE_WINDOW);
+    }
+
+    private Ed25519BatchVerification() {
+    }
+
+    /**
+     * One signature to check.
+     */
+    static final class Item {
+        private final PreparedKey key;
+        private final byte[] message;
+        private final int offset;
+        private final int length;
+        private final byte[] signature;
+
+        Item(PreparedKey key, byte[] message, int offset, int length, byte[] signature) {
+            this.key = key;
+            this.message = message;
+            this.offset = offset;
+            this.length = length;
+            this.signature = signature;
+        }
+    }
+
+    /**
+     * A public key decoded and expanded for batching: the odd multiples of -A.
+     */
+    static final class PreparedKey {
+        private final byte[] encoded;
+        private final CachedPoint[] negatedTable;
+
+        private PreparedKey(byte[] encoded, CachedPoint[] negatedTable) {
+            this.encoded = encoded;
+            this.negatedTable = negatedTable;
+        }
+    }
+
+    /**
+     * Decodes a public key for batching. Returns null if the key is not the canonical encoding of a curve point; no
+     * signature by such a key is valid.
+     */
+    static PreparedKey prepareKey(byte[] encodedKey) {
+        if (encodedKey.length != Ed25519.PUBLIC_KEY_SIZE) {
+            return null;
+        }
+        ExtendedPoint negated = decodePoint(encodedKey, 0, true);
+        if (negated == null) {
+            return null;
+        }
+        return new PreparedKey(encodedKey.clone(), oddMultiples(negated, POINT_WINDOW));
+    }
+
+    /**
+     * Returns true if the signature satisfies the cofactored equation.
+     */
+    static boolean verify(Item item) {
+        return verify(List.of(item));
+    }
+
+    /**
+     * Returns true if every signature in the batch is valid. When it returns false, at least one signature is invalid,
+     * and the caller has to check them one by one to find out which.
+     */
+    static boolean verify(List<Item> items) {
+        int n = items.size();
+        if (n == 0) {
+            return true;
+        }
+
+        MessageDigest sha512;
+        try {
+            sha512 = MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        byte[] randomBytes = new byte[16 * n];
+        if (n > 1) {
+            RANDOM.nextBytes(randomBytes);
+        }
+
+        List<CachedPoint[]> tables = new ArrayList<>(n + 2);
+        List<BigInteger> scalars = new ArrayList<>(n + 2);
+        Map<PreparedKey, BigInteger> keyScalars = new IdentityHashMap<>();
+        BigInteger baseScalar = BigInteger.ZERO;
+
+        for (int i = 0; i < n; i++) {
+            Item item = items.get(i);
+            byte[] signature = item.signature;
+            if (signature.length != Ed25519.SIGNATURE_SIZE) {
+                return false;
+            }
+            BigInteger s = littleEndian(signature, 32, 32);
+            if (s.compareTo(L) >= 0) {
+                return false;
+            }
+            ExtendedPoint negatedR = decodePoint(signature, 0, true);
+            if (negatedR == null) {
+                return false;
+            }
+
+            sha512.update(signature, 0, 32);
+            sha512.update(item.key.encoded);
+            sha512.update(item.message, item.offset, item.length);
+            BigInteger h = littleEndian(sha512.digest(), 0, 64).mod(L);
+            BigInteger z = n == 1 ? BigInteger.ONE : littleEndian(randomBytes, 16 * i, 16);
+
+            baseScalar = baseScalar.add(z.multiply(s));
+            keyScalars.merge(item.key, z.multiply(h), BigInteger::add);
+            tables.add(oddMultiples(negatedR, POINT_WINDOW));
+            scalars.add(z);
+        }
+
+        tables.add(BASE_TABLE);
+        scalars.add(baseScalar.mod(L));
+        for (Map.Entry<PreparedKey, BigInteger> keyScalar : keyScalars.entrySet()) {
+            tables.add(keyScalar.getKey().negatedTable);
+            scalars.add(keyScalar.getValue().mod(L));
+        }
+
+        ExtendedPoint sum = multiScalarMultiply(tables, scalars);
+        pointDouble(sum);
+        pointDouble(sum);
+        pointDouble(sum);
+        return isIdentity(sum);
+    }
+
+    private static ExtendedPoint multiScalarMultiply(List<CachedPoint[]> tables, List<BigInteger> scalars) {
+        int terms = tables.size();
+        byte[][] digits = new byte[terms][];
+        int top = -1;
+        for (int j = 0; j < terms; j++) {
+            CachedPoint[] table = tables.get(j);
+            digits[j] = wnaf(scalars.get(j), table == BASE_TABLE ? BASE_WINDOW : POINT_WINDOW);
+            for (int i = digits[j].length - 1; i > top; i--) {
+                if (digits[j][i] != 0) {
+                    top = i;
+                    break;
+                }
+            }
+        }
+
+        ExtendedPoint acc = new ExtendedPoint();
+        X25519Field.one(acc.y);
+        X25519Field.one(acc.z);
+        Temporaries t = new Temporaries();
+        for (int i = top; i >= 0; i--) {
+            pointDouble(acc);
+            for (int j = 0; j < terms; j++) {
+                int digit = digits[j][i];
+                if (digit > 0) {
+                    pointAdd(acc, tables.get(j)[digit >> 1], false, t);
+                } else if (digit < 0) {
+                    pointAdd(acc, tables.get(j)[-digit >> 1], true, t);
+                }
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Width-w non-adjacent form of a scalar below 2<sup>253</sup>: odd digits in (-2<sup>w-1</sup>, 2<sup>w-1</sup>),
+     * least significant first.
+     */
+    private static byte[] wnaf(BigInteger scalar, int width) {
+        long[] words = new long[5];
+        for (int i = 0; i < 4; i++) {
+            words[i] = scalar.shiftRight(64 * i).longValue();
+        }
+
+        byte[] naf = new byte[256];
+        int windowSize = 1 << width;
+        long windowMask = windowSize - 1;
+        int carry = 0;
+        int pos = 0;
+        while (pos < 256) {
+            int index = pos >>> 6;
+            int bit = pos & 63;
+            long bits;
+            if (bit < 64 - width) {
+                bits = words[index] >>> bit;
+            } else {
+                bits = (words[index] >>> bit) | (words[index + 1] << (64 - bit));
+            }
+
+            int window = carry + (int) (bits & windowMask);
+            if ((window & 1) == 0) {
+                pos++;
+                continue;
+            }
+            if (window < windowSize / 2) {
+                carry = 0;
+                naf[pos] = (byte) window;
+            } else {
+                carry = 1;
+                naf[pos] = (byte) (window - windowSize);
+            }
+            pos += width;
+        }
+        return naf;
+    }
+
+    /**
+     * Odd multiples P, 3P, ..., (2<sup>w-1</sup> - 1)P of a point.
+     */
+    private static CachedPoint[] oddMultiples(ExtendedPoint p, int width) {
+        int count = 1 << (width - 2);
+        CachedPoint[] table = new CachedPoint[count];
+        Temporaries t = new Temporaries();
+
+        ExtendedPoint doubled = copy(p);
+        pointDouble(doubled);
+        CachedPoint doubledCached = cached(doubled);
+
+        ExtendedPoint acc = copy(p);
+        table[0] = cached(acc);
+        for (int i = 1; i < count; i++) {
+            pointAdd(acc, doubledCached, false, t);
+            table[i] = cached(acc);
+        }
+        return table;
+    }
+
+    /**
+     * Decodes a point the way BouncyCastle's Ed25519 does, optionally negated. Returns null for an invalid encoding.
+     */
+    private static ExtendedPoint decodePoint(byte[] encoded, int offset, boolean negate) {
+        if (!isCanonicalY(encoded, offset)) {
+            return null;
+        }
+        int signBit = (encoded[offset + 31] & 0x80) >>> 7;
+
+        ExtendedPoint p = new ExtendedPoint();
+        X25519Field.decode(encoded, offset, p.y);
+
+        int[] u = X25519Field.create();
+        int[] v = X25519Field.create();
+        X25519Field.sqr(p.y, u);
+        X25519Field.mul(D, u, v);
+        X25519Field.subOne(u);
+        X25519Field.addOne(v);
+        if (!X25519Field.sqrtRatioVar(u, v, p.x)) {
+            return null;
+        }
+
+        X25519Field.normalize(p.x);
+        if (signBit == 1 && X25519Field.isZeroVar(p.x)) {
+            return null;
+        }
+        if (negate ^ (signBit != (p.x[0] & 1))) {
+            X25519Field.negate(p.x, p.x);
+        }
+
+        X25519Field.one(p.z);
+        X25519Field.mul(p.x, p.y, p.t);
+        return p;
+    }
+
+    /**
+     * Whether the encoded y coordinate, ignoring the sign bit, is below p = 2<sup>255</sup> - 19.
+     */
+    private static boolean isCanonicalY(byte[] encoded, int offset) {
+        if ((encoded[offset + 31] & 0x7f) != 0x7f) {
+            return true;
+        }
+        for (int i = 30; i > 0; i--) {
+            if (encoded[offset + i] != (byte) 0xff) {
+                return true;
+            }
+        }
+        return (encoded[offset] & 0xff) < 0xed;
+    }
+
+    private static boolean isIdentity(ExtendedPoint p) {
+        int[] difference = X25519Field.create();
+        X25519Field.sub(p.y, p.z, difference);
+        X25519Field.normalize(difference);
+        X25519Field.normalize(p.x);
+        return X25519Field.isZeroVar(p.x) && X25519Field.isZeroVar(difference);
+    }
+
+    /**
+     * Doubles the point in place (dbl-2008-hwcd for a = -1).
+     */
+    private static void pointDouble(ExtendedPoint r) {
+        int[] a = X25519Field.create();
+        int[] b = X25519Field.create();
+        int[] c = X25519Field.create();
+        int[] e = X25519Field.create();
+        int[] f = X25519Field.create();
+        int[] g = X25519Field.create();
+        int[] h = X25519Field.create();
+
+        X25519Field.sqr(r.x, a);
+        X25519Field.sqr(r.y, b);
+        X25519Field.sqr(r.z, c);
+        X25519Field.add(c, c, c);
+        X25519Field.apm(a, b, h, g);
+        X25519Field.add(r.x, r.y, e);
+        X25519Field.sqr(e, e);
+        X25519Field.sub(h, e, e);
+        X25519Field.add(c, g, f);
+        X25519Field.carry(f);
+
+        X25519Field.mul(e, f, r.x);
+        X25519Field.mul(g, h, r.y);
+        X25519Field.mul(f, g, r.z);
+        X25519Field.mul(e, h, r.t);
+    }
+
+    /**
+     * Adds a cached point to r in place (add-2008-hwcd-3 for a = -1), or subtracts it if negate is set.
+     */
+    private static void pointAdd(ExtendedPoint r, CachedPoint q, boolean negate, Temporaries t) {
+        int[] a = t.a;
+        int[] b = t.b;
+        int[] c = t.c;
+        int[] d = t.d;
+        int[] e = t.e;
+        int[] f = t.f;
+        int[] g = t.g;
+        int[] h = t.h;
+
+        X25519Field.apm(r.y, r.x, b, a);
+        if (negate) {
+            X25519Field.mul(a, q.yPlusX, a);
+            X25519Field.mul(b, q.yMinusX, b);
+        } else {
+            X25519Field.mul(a, q.yMinusX, a);
+            X25519Field.mul(b, q.yPlusX, b);
+        }
+        X25519Field.mul(r.t, q.t2d, c);
+        X25519Field.mul(r.z, q.z2, d);
+
+        X25519Field.apm(b, a, h, e);
+        if (negate) {
+            X25519Field.apm(d, c, f, g);
+        } else {
+            X25519Field.apm(d, c, g, f);
+        }
+        X25519Field.carry(f);
+        X25519Field.carry(g);
+
+        X25519Field.mul(e, f, r.x);
+        X25519Field.mul(g, h, r.y);
+        X25519Field.mul(e, h, r.t);
+        X25519Field.mul(f, g, r.z);
+    }
+
+    private static CachedPoint cached(ExtendedPoint p) {
+        CachedPoint q = new CachedPoint();
+        X25519Field.apm(p.y, p.x, q.yPlusX, q.yMinusX);
+        X25519Field.carry(q.yPlusX);
+        X25519Field.carry(q.yMinusX);
+        X25519Field.add(p.z, p.z, q.z2);
+        X25519Field.carry(q.z2);
+        X25519Field.mul(p.t, D2, q.t2d);
+        return q;
+    }
+
+    private static ExtendedPoint copy(ExtendedPoint p) {
+        ExtendedPoint q = new ExtendedPoint();
+        X25519Field.copy(p.x, 0, q.x, 0);
+        X25519Field.copy(p.y, 0, q.y, 0);
+        X25519Field.copy(p.z, 0, q.z, 0);
+        X25519Field.copy(p.t, 0, q.t, 0);
+        return q;
+    }
+
+    private static BigInteger littleEndian(byte[] bytes, int offset, int length) {
+        byte[] bigEndian = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bigEndian[i] = bytes[offset + length - 1 - i];
+        }
+        return new BigInteger(1, bigEndian);
+    }
+
+    private static int[] fieldElement(BigInteger value) {
+        byte[] encoded = new byte[32];
+        byte[] bigEndian = value.toByteArray();
+        for (int i = 0; i < bigEndian.length && i < 32; i++) {
+            encoded[i] = bigEndian[bigEndian.length - 1 - i];
+        }
+        int[] element = X25519Field.create();
+        X25519Field.decode(encoded, 0, element);
+        return element;
+    }
+
+    /**
+     * A point in extended coordinates (X : Y : Z : T) with x = X/Z, y = Y/Z and xy = T/Z.
+     */
+    private static final class ExtendedPoint {
+        private final int[] x = X25519Field.create();
+        private final int[] y = X25519Field.create();
+        private final int[] z = X25519Field.create();
+        private final int[] t = X25519Field.create();
+    }
+
+    /**
+     * A point in the form used as the second operand of an addition: (Y + X, Y - X, 2Z, 2dT).
+     */
+    private static final class CachedPoint {
+        private final int[] yPlusX = X25519Field.create();
+        private final int[] yMinusX = X25519Field.create();
+        private final int[] z2 = X25519Field.create();
+        private final int[] t2d = X25519Field.create();
+    }
+
+    private static final class Temporaries {
+        private final int[] a = X25519Field.create();
+        private final int[] b = X25519Field.create();
+        private final int[] c = X25519Field.create();
+        private final int[] d = X25519Field.create();
+        private final int[] e = X25519Field.create();
+        private final int[] f = X25519Field.create();
+        private final int[] g = X25519Field.create();
+        private final int[] h = X25519Field.create();
+    }
+}
@@ -0,0 +1,181 @@
+package com.ebay.signaturevalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Verifies Ed25519 signatures from concurrent requests together.
+ * <p>
+ * The first caller to arrive opens a batch and becomes its leader. Callers arriving within
+ * {@code signature.verification.ed25519-batch.max-wait-micros} join the batch and wait; the leader closes the batch
+ * when the wait is over or when it holds {@code signature.verification.ed25519-batch.max-size} signatures, checks
+ * them all with {@link Ed25519BatchVerification}, and hands out the results. If the batch check fails, each
+ * signature of the batch is verified on its own, so that only the bad ones are rejected. Single verification uses the
+ * same cofactored equation as the batch, so the result is always the same as without batching.
+ * <p>
+ * Batching adds up to the maximum wait to each verification, so it only pays off when many requests are verified at
+ * the same time. It is disabled by default; when disabled, or for RSA keys, {@link #verify} verifies the signature
+ * directly.
+ */
+public class Ed25519BatchVerifier {
+
+    private static final int MIN_BATCH_SIZE = 2;
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Batch openBatch; // guarded by lock
+
+    private final Logger logger = LoggerFactory.getLogger(Ed25519BatchVerifier.class.getName());
+
+    public Ed25519BatchVerifier(boolean enabled, long maxWaitMicros, int maxBatchSize) {
+        this.enabled = enabled;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Verifies the signature, as part of a batch if possible. The message buffer must not change until this returns.
+     */
+    public boolean verify(PreparedVerifier verifier, byte[] message, int offset, int length, byte[] signature) {
+        if (!enabled || !(verifier instanceof PreparedVerifier.Ed25519Verifier)) {
+            return verifier.verify(message, offset, length, signature);
+        }
+        PreparedVerifier.Ed25519Verifier ed25519Verifier = (PreparedVerifier.Ed25519Verifier) verifier;
+        Ed25519BatchVerification.PreparedKey batchKey = ed25519Verifier.getBatchKey();
+        if (batchKey == null) {
+            return verifier.verify(message, offset, length, signature);
+        }
+        Ed25519BatchVerification.Item item = new Ed25519BatchVerification.Item(batchKey, message, offset, length,
+                signature);
+
+        Job job = new Job(ed25519Verifier, item, message, offset, length, signature);
+        Batch batch;
+        boolean leader = false;
+        synchronized (lock) {
+            if (openBatch == null) {
+                openBatch = new Batch(Thread.currentThread());
+                leader = true;
+            }
+            batch = openBatch;
+            batch.jobs.add(job);
+            if (batch.jobs.size() >= maxBatchSize) {
+                openBatch = null;
+                batch.full = true;
+                LockSupport.unpark(batch.leader);
+            }
+        }
+
+        if (leader) {
+            lead(batch);
+        } else {
+            batch.awaitDone();
+        }
+        return job.verified;
+    }
+
+    private void lead(Batch batch) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        long remaining;
+        while (!batch.full && (remaining = deadline - System.nanoTime()) > 0
+                && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        synchronized (lock) {
+            if (openBatch == batch) {
+                openBatch = null;
+            }
+        }
+
+        // No one can join the batch any more
+        try {
+            verifyJobs(batch.jobs);
+        } finally {
+            batch.done.countDown();
+        }
+    }
+
+    private void verifyJobs(List<Job> jobs) {
+        if (jobs.size() >= MIN_BATCH_SIZE) {
+            List<Ed25519BatchVerification.Item> items = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                items.add(job.item);
+            }
+            try {
+                if (Ed25519BatchVerification.verify(items)) {
+                    for (Job job : jobs) {
+                        job.verified = true;
+                    }
+                    return;
+                }
+                logger.debug("Batch of {} Ed25519 signatures failed, verifying them one by one", jobs.size());
+            } catch (RuntimeException ex) {
+                logger.warn("Error verifying batch of Ed25519 signatures, verifying them one by one", ex);
+            }
+        }
+
+        for (Job job : jobs) {
+            job.verified = job.verifier.verify(job.message, job.offset, job.length, job.signature);
+        }
+    }
+
+    private static final class Batch {
+        private final Thread leader;
+        private final List<Job> jobs = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean full;
+
+        private Batch(Thread leader) {
+            this.leader = leader;
+        }
+
+        private void awaitDone() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    // The leader is already committed to this job, so wait for it anyway
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Job {
+        private final PreparedVerifier.Ed25519Verifier verifier;
+        private final Ed25519BatchVerification.Item item;
+        private final byte[] message;
+        private final int offset;
+        private final int length;
+        private final byte[] signature;
+        // Written by the leader before the batch's latch is released
+        private boolean verified;
+
+        private Job(PreparedVerifier.Ed25519Verifier verifier, Ed25519BatchVerification.Item item, byte[] message,
+                int offset, int length, byte[] signature) {
+            this.verifier = verifier;
+            this.item = item;
+            this.message = message;
+            this.offset = offset;
+            this.length = length;
+            this.signature = signature;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ebay.signaturevalidation;
+
+/**
+ * Why a message was rejected, as carried by {@link SignatureException#getReason()}. Used to label failure metrics.
+ */
+public enum FailureReason {
+    /**
+     * A required header, or a header named in Signature-Input, is missing.
+     */
+    MISSING_HEADER,
+    /**
+     * Signature-Input, Signature or Content-Digest is not valid, or names unsupported components.
+     */
+    MALFORMED_HEADER,
+    /**
+     * The x-ebay-signature-key JWE cannot be decrypted or does not hold a usable public key.
+     */
+    BAD_JWE,
+    /**
+     * The body does not match Content-Digest.
+     */
+    BAD_DIGEST,
+    /**
+     * The signature does not verify.
+     */
+    BAD_SIGNATURE,
+    /**
+     * The signature was created outside the accepted window, or its expires time has passed.
+     */
+    EXPIRED,
+    /**
+     * The signature has already been used within the accepted window.
+     */
+    REPLAYED,
+    /**
+     * Anything else, such as an I/O error while reading the body.
+     */
+    ERROR
+}
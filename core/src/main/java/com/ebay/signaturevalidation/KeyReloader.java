@@ -0,0 +1,160 @@
+package com.ebay.signaturevalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the keys folder and reloads the master keys and the signing key pair when their files change, without
+ * restarting.
+ * <p>
+ * The new key material is read and checked on the watcher's own thread while requests keep being signed and verified
+ * with the current keys. Only when all of it has been read is it swapped in, by replacing the immutable snapshots held
+ * by {@link KeypairService} and {@link SignatureService}; requests already in progress finish with the snapshot they
+ * started with. Files are usually rewritten in several steps, so a reload waits until the folder has been quiet for
+ * {@code signature.keys.reload.debounce-millis}. If the new files cannot be read, or the private key does not match
+ * the public key, the current keys stay in use until the files change again.
+ * <p>
+ * When a master key is removed from the keyring, the cached public keys are dropped, so that x-ebay-signature-key JWEs
+ * are only accepted if they decrypt with one of the remaining master keys. Keys that requests are still decrypting
+ * with the previous keyring are not cached either; see {@link PublicKeyCache}.
+ * <p>
+ * The keys folder and its subfolders are watched, including subfolders created after the start, such as an algorithm
+ * folder that is replaced by renaming a new one into place.
+ * <p>
+ * Disabled by default.
+ */
+public class KeyReloader {
+
+    private final KeypairService keypairService;
+    private final SignatureService signatureService;
+    private final VerificationService verificationService;
+    private final boolean enabled;
+    private final long debounceMillis;
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    private final Logger logger = LoggerFactory.getLogger(KeyReloader.class.getName());
+
+    public KeyReloader(KeypairService keypairService,
+                       SignatureService signatureService,
+                       VerificationService verificationService,
+                       boolean enabled, long debounceMillis) {
+        this.keypairService = keypairService;
+        this.signatureService = signatureService;
+        this.verificationService = verificationService;
+        this.enabled = enabled;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Reads the key material from the keys folder and swaps it in.
+     *
+     * @return true if the keys were reloaded, false if the current keys were kept
+     */
+    public synchronized boolean reload() {
+        long start = System.nanoTime();
+        try {
+            MasterKeyring keyring = MasterKeyring.load(keypairService.getKeysFolder());
+            SignatureService.SigningKey signingKey = signatureService.loadSigningKey(keyring);
+
+            boolean masterKeyRemoved = !keyring.getKeyIds().containsAll(keypairService.getKeyring().getKeyIds());
+            keypairService.setKeyring(keyring);
+            signatureService.setSigningKey(signingKey);
+            if (masterKeyRemoved) {
+                verificationService.invalidateKeyCache();
+            }
+
+            logger.info("Reloaded keys from {} in {} ms, master keys {} (primary {}){}", keypairService.getKeysFolder(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), keyring.getKeyIds(),
+                    keyring.getPrimaryKeyId(), masterKeyRemoved ? ", cached public keys dropped" : "");
+            return true;
+        } catch (SignatureException ex) {
+            logger.warn("Keeping the current keys, reloading from {} failed after {} ms: {}", keypairService.getKeysFolder(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Starts watching the keys folder, if enabled.
+     */
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Path folder = keypairService.getKeysFolder();
+        watchService = folder.getFileSystem().newWatchService();
+        register(folder);
+        try (DirectoryStream<Path> subfolders = Files.newDirectoryStream(folder, Files::isDirectory)) {
+            for (Path subfolder : subfolders) {
+                register(subfolder);
+            }
+        }
+
+        watcher = new Thread(this::watch, "key-reloader");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching {} for key changes", folder);
+    }
+
+    /**
+     * Stops watching the keys folder.
+     */
+    public void stop() throws IOException, InterruptedException {
+        if (watchService != null) {
+            watchService.close();
+            watcher.join();
+        }
+    }
+
+    private void register(Path folder) throws IOException {
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // Wait until no more changes arrive before reloading
+                do {
+                    registerCreatedFolders(key);
+                    key.reset();
+                } while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null);
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            // Stopped
+        }
+    }
+
+    private void registerCreatedFolders(WatchKey key) {
+        Path folder = keypairService.getKeysFolder();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() != StandardWatchEventKinds.ENTRY_CREATE || !folder.equals(key.watchable())) {
+                continue;
+            }
+            Path created = folder.resolve((Path) event.context());
+            if (Files.isDirectory(created)) {
+                try {
+                    register(created);
+                } catch (IOException ex) {
+                    logger.warn("Cannot watch {} for key changes: {}", created, ex.getMessage());
+                }
+            }
+        }
+    }
+}
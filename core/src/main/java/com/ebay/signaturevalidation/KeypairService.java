@@ -1,9 +1,6 @@
 package com.ebay.signaturevalidation;
 
-
 import com.nimbusds.jose.*;
-import com.nimbusds.jose.crypto.AESDecrypter;
-import com.nimbusds.jose.crypto.AESEncrypter;
 import com.nimbusds.jwt.EncryptedJWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
@@ -15,12 +12,9 @@ import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 import org.bouncycastle.util.encoders.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
 import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.*;
 import java.text.ParseException;
@@ -28,50 +22,84 @@ import java.util.Date;
 import java.util.UUID;
 
 
-@Service
 public class KeypairService {
 
     private final Logger logger = LoggerFactory.getLogger(KeypairService.class.getName());
-    private final JWEEncrypter jweEncrypter;
-    private final JWEDecrypter jweDecrypter;
 
-    private static final String KEYS_FOLDER = "src/main/resources/keys/";
+    private static final String KEYS_FOLDER = "keys/";
+
+    private final String algorithm;
+    private final Path keysFolder;
 
-    private final String algorithm = EdDSAParameterSpec.Ed25519;
-//    private String algorithm = "RSA";
+    // Replaced as a whole by KeyReloader; readers take one reference and use it throughout
+    private volatile MasterKeyring keyring;
 
     public KeypairService() throws SignatureException {
-        try {
-            Path masterkeyPath = Path.of(KEYS_FOLDER + "masterkey.key");
-            String secretKeyBase64 = Files.readString(masterkeyPath);
-            final byte[] secretKey = Base64.decode(secretKeyBase64);
-
-            jweEncrypter = new AESEncrypter(secretKey);
-            jweDecrypter = new AESDecrypter(secretKey);
-        } catch (IOException | KeyLengthException ex) {
-            throw new SignatureException("Error loading master key: " + ex.getMessage(), ex);
-        }
+        this(EdDSAParameterSpec.Ed25519);
+    }
+
+    public KeypairService(String algorithm) throws SignatureException {
+        this(algorithm, KEYS_FOLDER);
+    }
+
+    /**
+     * @param algorithm  the algorithm of the key pair used for signing, Ed25519 or RSA
+     * @param keysFolder the folder holding the master keys (see {@link MasterKeyring}) and a subfolder per algorithm
+     *                   with the PEM key pair
+     */
+    public KeypairService(String algorithm, String keysFolder) throws SignatureException {
+        Security.addProvider(new BouncyCastleProvider());
+        this.algorithm = algorithm;
+        this.keysFolder = Path.of(keysFolder);
+        this.keyring = MasterKeyring.load(this.keysFolder);
     }
 
     public EncryptedJWT decryptJWE(String jweString) throws SignatureException {
         try {
             EncryptedJWT jwe = EncryptedJWT.parse(jweString);
-            jwe.decrypt(jweDecrypter);
+            JWEDecrypter decrypter = keyring.getDecrypter(jwe.getHeader().getKeyID());
+            if (decrypter == null) {
+                throw new SignatureException(FailureReason.BAD_JWE, "The JWE in the x-ebay-signature-key header was encrypted with an unknown master key");
+            }
+            jwe.decrypt(decrypter);
             return jwe;
         } catch (ParseException | JOSEException ex) {
-            throw new SignatureException("Error decrypting the JWE from x-ebay-signature-key header. Please note that you can only use the test keys and JWEs listed in the README, not one retrieved from the Key Management API. These will only work on the ebay APIs.", ex);
+            throw new SignatureException(FailureReason.BAD_JWE, "Error decrypting the JWE from x-ebay-signature-key header. Please note that you can only use the test keys and JWEs listed in the README, not one retrieved from the Key Management API. These will only work on the ebay APIs.", ex);
         }
     }
 
     public KeyPair loadExistingKeyPair() throws SignatureException {
-        String algoFolder = algorithm.toLowerCase();
-        PrivateKey privateKey = readPrivateKey(KEYS_FOLDER + algoFolder + "/privatekey.pem");
-        PublicKey publicKey = readPublicKey(KEYS_FOLDER + algoFolder + "/publickey.pem");
+        return loadExistingKeyPair(algorithm);
+    }
+
+    public KeyPair loadExistingKeyPair(String algorithm) throws SignatureException {
+        Path algoFolder = keysFolder.resolve(algorithm.toLowerCase());
+        PrivateKey privateKey = readPrivateKey(algoFolder.resolve("privatekey.pem").toString());
+        PublicKey publicKey = readPublicKey(algoFolder.resolve("publickey.pem").toString());
         return new KeyPair(publicKey, privateKey);
     }
 
+    MasterKeyring getKeyring() {
+        return keyring;
+    }
+
+    /**
+     * Makes the given keyring the one JWEs are encrypted and decrypted with. Decryptions already in progress finish
+     * with the previous one.
+     */
+    void setKeyring(MasterKeyring keyring) {
+        this.keyring = keyring;
+    }
+
+    public Path getKeysFolder() {
+        return keysFolder;
+    }
 
     public String getJWE(PublicKey publicKey) throws SignatureException {
+        return getJWE(publicKey, keyring);
+    }
+
+    String getJWE(PublicKey publicKey, MasterKeyring keyring) throws SignatureException {
         try {
             // Compose the JWT claims set
             Date now = new Date();
@@ -91,6 +119,7 @@ public class KeypairService {
             // Request JWT encrypted with DIR and 256-bit AES/GCM
             JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.A256GCMKW, EncryptionMethod.A256GCM)
                     .compressionAlgorithm(CompressionAlgorithm.DEF)
+                    .keyID(keyring.getPrimaryKeyId())
                     .build();
 
 
@@ -98,7 +127,7 @@ public class KeypairService {
             EncryptedJWT jwt = new EncryptedJWT(header, jwtClaims);
 
             // Do the actual encryption
-            jwt.encrypt(jweEncrypter);
+            jwt.encrypt(keyring.getEncrypter());
 
             // Serialise to JWT compact form
             String jwtString = jwt.serialize();
@@ -138,9 +167,4 @@ public class KeypairService {
     public String getAlgorithm() {
         return algorithm;
     }
-
-    @PostConstruct
-    private void postConstruct() {
-        Security.addProvider(new BouncyCastleProvider());
-    }
 }
@@ -0,0 +1,113 @@
+package com.ebay.signaturevalidation;
+
+import com.nimbusds.jose.JWEDecrypter;
+import com.nimbusds.jose.JWEEncrypter;
+import com.nimbusds.jose.KeyLengthException;
+import com.nimbusds.jose.crypto.AESDecrypter;
+import com.nimbusds.jose.crypto.AESEncrypter;
+import org.bouncycastle.util.encoders.Base64;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The master keys that x-ebay-signature-key JWEs are encrypted with, each identified by a key ID derived from its
+ * value.
+ * <p>
+ * The primary key, read from {@code masterkey.key}, encrypts new JWEs and puts its key ID in their kid header. Further
+ * keys, read from {@code masterkey-<name>.key} files next to it, are only used to decrypt, so that JWEs made with an
+ * earlier master key keep working while the keys are rotated. A decrypter is built for every key up front and looked
+ * up by the kid of the JWE, so decrypting costs the same however many keys there are. JWEs without a kid predate key
+ * IDs and are decrypted with the primary key.
+ * <p>
+ * Immutable, so a keyring can be replaced as a whole while other threads are decrypting with it.
+ */
+public final class MasterKeyring {
+
+    private static final String PRIMARY_FILE = "masterkey.key";
+    private static final String ADDITIONAL_FILES = "masterkey-*.key";
+    private static final int KEY_ID_BYTES = 9;
+
+    private final String primaryKeyId;
+    private final JWEEncrypter encrypter;
+    private final JWEDecrypter primaryDecrypter;
+    private final Map<String, JWEDecrypter> decrypters;
+
+    private MasterKeyring(String primaryKeyId, JWEEncrypter encrypter, Map<String, JWEDecrypter> decrypters) {
+        this.primaryKeyId = primaryKeyId;
+        this.encrypter = encrypter;
+        this.primaryDecrypter = decrypters.get(primaryKeyId);
+        this.decrypters = decrypters;
+    }
+
+    /**
+     * Reads the master keys from a keys folder.
+     */
+    public static MasterKeyring load(Path folder) throws SignatureException {
+        try {
+            byte[] primaryKey = readKey(folder.resolve(PRIMARY_FILE));
+            String primaryKeyId = keyId(primaryKey);
+
+            Map<String, JWEDecrypter> decrypters = new HashMap<>();
+            decrypters.put(primaryKeyId, new AESDecrypter(primaryKey));
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, ADDITIONAL_FILES)) {
+                for (Path file : files) {
+                    byte[] key = readKey(file);
+                    String keyId = keyId(key);
+                    if (!decrypters.containsKey(keyId)) {
+                        decrypters.put(keyId, new AESDecrypter(key));
+                    }
+                }
+            }
+            return new MasterKeyring(primaryKeyId, new AESEncrypter(primaryKey), Collections.unmodifiableMap(decrypters));
+        } catch (IOException | RuntimeException | KeyLengthException ex) {
+            throw new SignatureException("Error loading master key: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Returns the decrypter of the master key with the given ID, or null if the keyring has no such key.
+     *
+     * @param keyId the kid header of a JWE, or null for the primary key
+     */
+    public JWEDecrypter getDecrypter(String keyId) {
+        return keyId == null ? primaryDecrypter : decrypters.get(keyId);
+    }
+
+    public JWEEncrypter getEncrypter() {
+        return encrypter;
+    }
+
+    public String getPrimaryKeyId() {
+        return primaryKeyId;
+    }
+
+    public Set<String> getKeyIds() {
+        return decrypters.keySet();
+    }
+
+    private static byte[] readKey(Path file) throws IOException {
+        return Base64.decode(Files.readString(file).trim());
+    }
+
+    /**
+     * The first 72 bits of the key's SHA-256 hash, base64url encoded.
+     */
+    private static String keyId(byte[] key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key);
+            return java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, KEY_ID_BYTES));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ebay.signaturevalidation;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * The parts of an HTTP message that a signature base can cover: the request method, the target URI and the header
+ * fields. Lets signing and verification share one {@link SignatureBaseEncoder} whatever the message type.
+ * <p>
+ * Components are read on demand, only when a signature covers them. A view of a received request can therefore
+ * override the URI parts below to read them from the request directly, and never build the whole target URI unless
+ * {@code @target-uri} or one of the parts it does not override is covered.
+ */
+public interface MessageComponents {
+
+    String getMethod();
+
+    URI getUri();
+
+    /**
+     * Returns the value of a header field, or null if the message does not have it. A field sent on several lines has
+     * their values combined in order, separated by a comma and a space, as RFC 9421 section 2.1 requires.
+     *
+     * @param name lowercase header field name
+     */
+    String getHeader(String name);
+
+    /**
+     * The {@code @authority} component: host and, if not the default, port.
+     */
+    default String getAuthority() {
+        return getUri().getAuthority();
+    }
+
+    /**
+     * The {@code @path} component, decoded.
+     */
+    default String getPath() {
+        return getUri().getPath();
+    }
+
+    /**
+     * The {@code @query} component, decoded and without the question mark, or null if the URI has no query.
+     */
+    default String getQuery() {
+        return getUri().getQuery();
+    }
+
+    default String getScheme() {
+        return getUri().getScheme();
+    }
+
+    /**
+     * The {@code @status} component of a response, or 0 if the message is a request.
+     */
+    default int getStatus() {
+        return 0;
+    }
+
+    /**
+     * Message components of a received request.
+     *
+     * @param headers header fields keyed by lowercase name
+     */
+    static MessageComponents of(String method, URI uri, Map<String, String> headers) {
+        return new MessageComponents() {
+            @Override
+            public String getMethod() {
+                return method;
+            }
+
+            @Override
+            public URI getUri() {
+                return uri;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return headers.get(name);
+            }
+        };
+    }
+
+    /**
+     * Message components of a received response.
+     *
+     * @param method the method of the request the response answers
+     * @param uri the target URI of the request the response answers
+     * @param headers header fields keyed by lowercase name
+     */
+    static MessageComponents ofResponse(String method, URI uri, int status, Map<String, String> headers) {
+        return new MessageComponents() {
+            @Override
+            public String getMethod() {
+                return method;
+            }
+
+            @Override
+            public URI getUri() {
+                return uri;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return headers.get(name);
+            }
+
+            @Override
+            public int getStatus() {
+                return status;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.crypto.CryptoException;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.signers.RSADigestSigner;
+import org.bouncycastle.crypto.util.PrivateKeyFactory;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+
+import java.io.IOException;
+import java.security.PrivateKey;
+
+/**
+ * Private key in the form needed by the BouncyCastle signers, decoded once and shared between threads.
+ * <p>
+ * Instances are immutable, so any number of threads can call {@link #sign(byte[], int, int)} at the same time.
+ */
+public abstract class PreparedSigner {
+
+    private PreparedSigner() {
+    }
+
+    public static PreparedSigner forPrivateKey(PrivateKey privateKey) throws SignatureException {
+        AsymmetricKeyParameter keyParameter;
+        try {
+            keyParameter = PrivateKeyFactory.createKey(privateKey.getEncoded());
+        } catch (IOException ex) {
+            throw new SignatureException("Error decoding private key: " + ex.getMessage(), ex);
+        }
+
+        if (keyParameter instanceof Ed25519PrivateKeyParameters) {
+            return new Ed25519KeySigner((Ed25519PrivateKeyParameters) keyParameter);
+        } else if (keyParameter instanceof RSAKeyParameters) {
+            return new RsaKeySigner((RSAKeyParameters) keyParameter);
+        }
+        throw new SignatureException("Unsupported private key algorithm " + privateKey.getAlgorithm());
+    }
+
+    /**
+     * The signature algorithm, Ed25519 or RSA, regardless of the name the key's provider uses for it.
+     */
+    public abstract String getAlgorithm();
+
+    public abstract byte[] sign(byte[] message, int offset, int length) throws SignatureException;
+
+    private static final class Ed25519KeySigner extends PreparedSigner {
+        static {
+            Ed25519.precompute();
+        }
+
+        private final byte[] secretKey;
+        private final byte[] publicKey;
+
+        private Ed25519KeySigner(Ed25519PrivateKeyParameters keyParameters) {
+            this.secretKey = keyParameters.getEncoded();
+            this.publicKey = keyParameters.generatePublicKey().getEncoded();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "Ed25519";
+        }
+
+        @Override
+        public byte[] sign(byte[] message, int offset, int length) {
+            byte[] signature = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(secretKey, 0, publicKey, 0, message, offset, length, signature, 0);
+            return signature;
+        }
+    }
+
+    private static final class RsaKeySigner extends PreparedSigner {
+        private final RSAKeyParameters keyParameters;
+
+        private RsaKeySigner(RSAKeyParameters keyParameters) {
+            this.keyParameters = keyParameters;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "RSA";
+        }
+
+        @Override
+        public byte[] sign(byte[] message, int offset, int length) throws SignatureException {
+            RSADigestSigner signer = new RSADigestSigner(new SHA256Digest());
+            signer.init(true, keyParameters);
+            signer.update(message, offset, length);
+            try {
+                return signer.generateSignature();
+            } catch (CryptoException ex) {
+                throw new SignatureException("Error creating value for signature: " + ex.getMessage(), ex);
+            }
+        }
+    }
+}
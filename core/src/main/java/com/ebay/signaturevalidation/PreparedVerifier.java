@@ -0,0 +1,124 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.signers.RSADigestSigner;
+import org.bouncycastle.crypto.util.PublicKeyFactory;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+
+import java.io.IOException;
+import java.security.PublicKey;
+
+/**
+ * Public key in the form needed by the BouncyCastle verifiers, decoded once and shared between threads.
+ * <p>
+ * Instances are immutable. Each call to {@link #verify(byte[], int, int, byte[])} only performs the signature math.
+ * Ed25519 signatures are checked with the cofactored equation of RFC 8032, the one batch verification needs, so that a
+ * signature is accepted or rejected the same way whether it is batched or not; see {@link Ed25519BatchVerification}.
+ */
+public abstract class PreparedVerifier {
+
+    private final PublicKey publicKey;
+
+    private PreparedVerifier(PublicKey publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    public static PreparedVerifier forPublicKey(PublicKey publicKey) throws SignatureException {
+        AsymmetricKeyParameter keyParameter;
+        try {
+            keyParameter = PublicKeyFactory.createKey(publicKey.getEncoded());
+        } catch (IOException ex) {
+            throw new SignatureException(FailureReason.BAD_JWE, "Error decoding public key: " + ex.getMessage(), ex);
+        }
+
+        if (keyParameter instanceof Ed25519PublicKeyParameters) {
+            return new Ed25519Verifier(publicKey, (Ed25519PublicKeyParameters) keyParameter);
+        } else if (keyParameter instanceof RSAKeyParameters) {
+            return new RsaVerifier(publicKey, (RSAKeyParameters) keyParameter);
+        }
+        throw new SignatureException(FailureReason.BAD_JWE, "Unsupported public key algorithm " + publicKey.getAlgorithm());
+    }
+
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    /**
+     * The signature algorithm, Ed25519 or RSA, regardless of the name the key's provider uses for it.
+     */
+    public abstract String getAlgorithm();
+
+    public abstract boolean verify(byte[] message, int offset, int length, byte[] signature);
+
+    static final class Ed25519Verifier extends PreparedVerifier {
+        static {
+            Ed25519.precompute();
+        }
+
+        private final byte[] encodedPoint;
+        private volatile Object batchKey;
+
+        private Ed25519Verifier(PublicKey publicKey, Ed25519PublicKeyParameters keyParameters) {
+            super(publicKey);
+            this.encodedPoint = keyParameters.getEncoded();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "Ed25519";
+        }
+
+        @Override
+        public boolean verify(byte[] message, int offset, int length, byte[] signature) {
+            if (signature.length != Ed25519.SIGNATURE_SIZE) {
+                return false;
+            }
+            if (Ed25519.verify(signature, 0, encodedPoint, 0, message, offset, length)) {
+                return true;
+            }
+            // The cofactorless check failed; a small-order component in R or A can still pass the cofactored one
+            Ed25519BatchVerification.PreparedKey key = getBatchKey();
+            return key != null && Ed25519BatchVerification.verify(
+                    new Ed25519BatchVerification.Item(key, message, offset, length, signature));
+        }
+
+        /**
+         * The key decoded for {@link Ed25519BatchVerification}, or null if it is not a valid point. Prepared on first
+         * use.
+         */
+        Ed25519BatchVerification.PreparedKey getBatchKey() {
+            Object key = batchKey;
+            if (key == null) {
+                Ed25519BatchVerification.PreparedKey prepared = Ed25519BatchVerification.prepareKey(encodedPoint);
+                key = prepared != null ? prepared : Boolean.FALSE;
+                batchKey = key;
+            }
+            return key instanceof Ed25519BatchVerification.PreparedKey ? (Ed25519BatchVerification.PreparedKey) key : null;
+        }
+    }
+
+    private static final class RsaVerifier extends PreparedVerifier {
+        private final RSAKeyParameters keyParameters;
+
+        private RsaVerifier(PublicKey publicKey, RSAKeyParameters keyParameters) {
+            super(publicKey);
+            this.keyParameters = keyParameters;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "RSA";
+        }
+
+        @Override
+        public boolean verify(byte[] message, int offset, int length, byte[] signature) {
+            RSADigestSigner signer = new RSADigestSigner(new SHA256Digest());
+            signer.init(false, keyParameters);
+            signer.update(message, offset, length);
+            return signer.verifySignature(signature);
+        }
+    }
+}
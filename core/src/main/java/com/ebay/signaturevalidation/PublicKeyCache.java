@@ -0,0 +1,117 @@
+package com.ebay.signaturevalidation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded cache of public keys resolved from x-ebay-signature-key JWEs, held as {@link PreparedVerifier}s.
+ * <p>
+ * Entries are keyed on the compact JWE string and expire at the JWE's exp claim. JWEs whose nbf claim lies in the
+ * future or whose exp claim has already passed are never cached.
+ * <p>
+ * {@link #invalidateAll()} starts a new generation. Callers read {@link #generation()} before decrypting a JWE and
+ * pass it to {@link #put}, so that a key decrypted with a master key that has meanwhile been removed is not cached, or
+ * is dropped on the next {@link #get} if it was put just after the invalidation.
+ */
+public class PublicKeyCache {
+
+    private final Cache<String, Entry> cache;
+    private volatile long generation;
+
+    public PublicKeyCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+    }
+
+    public PreparedVerifier get(String jwe) {
+        Entry entry = cache.getIfPresent(jwe);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.generation != generation) {
+            cache.asMap().remove(jwe, entry);
+            return null;
+        }
+        return entry.verifier;
+    }
+
+    /**
+     * The current generation, to be read before the JWE is decrypted.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    public void put(String jwe, JWTClaimsSet claims, PreparedVerifier verifier, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Date notBefore = claims.getNotBeforeTime();
+        Date expiration = claims.getExpirationTime();
+
+        if (notBefore != null && notBefore.getTime() > now) {
+            return;
+        }
+        if (expiration != null && expiration.getTime() <= now) {
+            return;
+        }
+
+        cache.put(jwe, new Entry(verifier, expiration == null ? Long.MAX_VALUE : expiration.getTime(), generation));
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static final class Entry {
+        private final PreparedVerifier verifier;
+        private final long expiresAt;
+        private final long generation;
+
+        private Entry(PreparedVerifier verifier, long expiresAt, long generation) {
+            this.verifier = verifier;
+            this.expiresAt = expiresAt;
+            this.generation = generation;
+        }
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            if (value.expiresAt == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long remaining = value.expiresAt - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
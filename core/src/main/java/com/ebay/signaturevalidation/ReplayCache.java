@@ -0,0 +1,161 @@
+package com.ebay.signaturevalidation;
+
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Rejects signatures that were created too long ago, and signatures that have been seen before.
+ * <p>
+ * A signature is accepted if its created parameter lies between {@code max-age-seconds} in the past and
+ * {@code clock-skew-seconds} in the future, and its expires parameter, if any, has not passed. Once verified, it is
+ * remembered until its created time leaves the window; presenting it again within the window is a replay.
+ * <p>
+ * Signatures are remembered in a ring of time buckets by created time, each a concurrent set, so recording one takes no
+ * global lock. When a bucket's time range has left the window, the first signature to need its slot replaces the whole
+ * bucket with a single compare-and-set; nothing is evicted entry by entry. Memory is under 100 bytes per signature
+ * created within the window, so it grows with the window times the request rate. A signature is remembered by the first
+ * 128 bits of its value, which are unique to the signed message for both Ed25519 and RSA.
+ * <p>
+ * Disabled by default; when disabled, every signature is accepted.
+ */
+public class ReplayCache {
+
+    private static final int TARGET_BUCKETS = 16;
+
+    private final boolean enabled;
+    private final long maxAgeSeconds;
+    private final long clockSkewSeconds;
+    private final long bucketSeconds;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final Clock clock;
+
+    public ReplayCache(boolean enabled, long maxAgeSeconds, long clockSkewSeconds) {
+        this(enabled, maxAgeSeconds, clockSkewSeconds, Clock.systemUTC());
+    }
+
+    ReplayCache(boolean enabled, long maxAgeSeconds, long clockSkewSeconds, Clock clock) {
+        this.enabled = enabled;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.clock = clock;
+
+        long window = maxAgeSeconds + clockSkewSeconds;
+        this.bucketSeconds = Math.max(1, (window + TARGET_BUCKETS - 1) / TARGET_BUCKETS);
+        // A slot is only reused by a bucket whose range starts more than the window after the old one's ended
+        int slots = (int) ((window + bucketSeconds - 1) / bucketSeconds) + 2;
+        this.buckets = new AtomicReferenceArray<>(slots);
+        for (int i = 0; i < slots; i++) {
+            buckets.set(i, new Bucket(Long.MIN_VALUE));
+        }
+    }
+
+    /**
+     * Checks the created and expires parameters of a signature against the current time.
+     */
+    public void checkWindow(Long created, Long expires) throws SignatureException {
+        if (!enabled) {
+            return;
+        }
+
+        long now = now();
+        if (created == null || created < now - maxAgeSeconds) {
+            throw new SignatureException(FailureReason.EXPIRED, "Signature created more than " + maxAgeSeconds + " seconds ago");
+        }
+        if (created > now + clockSkewSeconds) {
+            throw new SignatureException(FailureReason.EXPIRED, "Signature created in the future");
+        }
+        if (expires != null && expires < now) {
+            throw new SignatureException(FailureReason.EXPIRED, "Signature expired");
+        }
+    }
+
+    /**
+     * Records a verified signature, rejecting it if it has been recorded before.
+     *
+     * @param created the signature's created parameter, already checked with {@link #checkWindow}
+     */
+    public void record(byte[] signature, long created) throws SignatureException {
+        if (!enabled) {
+            return;
+        }
+
+        if (!add(new Key(signature), created)) {
+            throw new SignatureException(FailureReason.REPLAYED, "Signature has already been used");
+        }
+    }
+
+    /**
+     * The number of signatures remembered, including some that have left the window but whose bucket has not yet
+     * been replaced.
+     */
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            size += buckets.get(i).keys.size();
+        }
+        return size;
+    }
+
+    private boolean add(Key key, long created) {
+        long epoch = Math.floorDiv(created, bucketSeconds);
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket.epoch == epoch) {
+                return bucket.keys.add(key);
+            }
+            if (bucket.epoch > epoch) {
+                // The slot already holds a later range, so this one has left the window
+                return false;
+            }
+            buckets.compareAndSet(slot, bucket, new Bucket(epoch));
+        }
+    }
+
+    private long now() {
+        return Math.floorDiv(clock.millis(), 1000);
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final Set<Key> keys = ConcurrentHashMap.newKeySet();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class Key {
+        private final long high;
+        private final long low;
+
+        private Key(byte[] signature) {
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8 && i < signature.length; i++) {
+                high = (high << 8) | (signature[i] & 0xff);
+            }
+            for (int i = 8; i < 16 && i < signature.length; i++) {
+                low = (low << 8) | (signature[i] & 0xff);
+            }
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high * 31 + low);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.ebay.signaturevalidation;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a capture file of signed requests through {@link VerificationService#verifyCaptured} in-process, without
+ * Spring MVC or sockets, and prints the throughput and the latency percentiles of each verification stage.
+ * <p>
+ * The capture file has one {@link CapturedRequest} JSON record per line, the same format as the batch endpoint. It
+ * is loaded into memory before the replay starts. Run it with:
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.ebay.signaturevalidation.ReplayTool \
+ *     -Dexec.args="captured-requests.ndjson --threads 4 --rate 2000 --iterations 10"
+ * </pre>
+ * With a fixed rate, request latency is measured from the time each request was scheduled to start, so a stall is
+ * not hidden by the requests that queue up behind it.
+ * <p>
+ * With {@code --replay-max-age}, records are verified like received requests instead, through the replay cache: only
+ * records signed within that many seconds are accepted, and each only once, so later passes are rejected as replays.
+ */
+public final class ReplayTool {
+
+    private static final String USAGE = "Usage: ReplayTool <capture-file> [--threads N] [--rate REQUESTS_PER_SECOND]"
+            + " [--iterations N] [--warmup N] [--key-cache-size N] [--replay-max-age SECONDS]"
+            + " [--ed25519-batch-wait MICROSECONDS]";
+
+    private final VerificationService verificationService;
+    private final List<CapturedRequest> corpus;
+    private final int threads;
+    private final double rate;
+    private final int iterations;
+    private final int warmup;
+    private final boolean received;
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final Map<VerificationStage, Histogram> stageLatencies = new EnumMap<>(VerificationStage.class);
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    /**
+     * @param rate requests per second across all threads, or 0 to replay as fast as possible
+     * @param iterations number of measured passes over the corpus
+     * @param warmup number of passes over the corpus before measuring
+     */
+    public ReplayTool(VerificationService verificationService, List<CapturedRequest> corpus, int threads, double rate,
+                      int iterations, int warmup) {
+        this(verificationService, corpus, threads, rate, iterations, warmup, false);
+    }
+
+    /**
+     * @param received whether to verify the records as received requests, subject to the replay protection of the
+     *                 verificationService, rather than as captured ones
+     */
+    public ReplayTool(VerificationService verificationService, List<CapturedRequest> corpus, int threads, double rate,
+                      int iterations, int warmup, boolean received) {
+        this.verificationService = verificationService;
+        this.corpus = corpus;
+        this.threads = threads;
+        this.rate = rate;
+        this.iterations = iterations;
+        this.warmup = warmup;
+        this.received = received;
+        for (VerificationStage stage : VerificationStage.values()) {
+            stageLatencies.put(stage, new ConcurrentHistogram(3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Path captureFile = Path.of(args[0]);
+        int threads = 1;
+        double rate = 0;
+        int iterations = 1;
+        int warmup = 0;
+        long keyCacheSize = 10000;
+        long replayMaxAge = 0;
+        long batchWaitMicros = 0;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--rate":
+                        rate = Double.parseDouble(value);
+                        break;
+                    case "--iterations":
+                        iterations = Integer.parseInt(value);
+                        break;
+                    case "--warmup":
+                        warmup = Integer.parseInt(value);
+                        break;
+                    case "--key-cache-size":
+                        keyCacheSize = Long.parseLong(value);
+                        break;
+                    case "--replay-max-age":
+                        replayMaxAge = Long.parseLong(value);
+                        break;
+                    case "--ed25519-batch-wait":
+                        batchWaitMicros = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Security.addProvider(new BouncyCastleProvider());
+
+        List<CapturedRequest> corpus = loadCorpus(captureFile);
+        CryptoExecutor cryptoExecutor = new CryptoExecutor(0, 1024);
+        try {
+            VerificationService.Builder builder = VerificationService.builder(new KeypairService(), cryptoExecutor)
+                    .ed25519BatchVerifier(new Ed25519BatchVerifier(batchWaitMicros > 0, batchWaitMicros, 64))
+                    .keyCacheMaximumSize(keyCacheSize);
+            if (replayMaxAge > 0) {
+                builder.replayCache(new ReplayCache(true, replayMaxAge, 30));
+            }
+            new ReplayTool(builder.build(), corpus, threads, rate, iterations, warmup, replayMaxAge > 0).run(System.out);
+        } finally {
+            cryptoExecutor.shutdown();
+        }
+    }
+
+    public static List<CapturedRequest> loadCorpus(Path captureFile) throws IOException, SignatureException {
+        List<CapturedRequest> corpus = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(captureFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    corpus.add(CapturedRequest.parse(line));
+                } catch (SignatureException ex) {
+                    throw new SignatureException(captureFile + " line " + lineNumber + ": " + ex.getMessage(), ex);
+                }
+            }
+        }
+        if (corpus.isEmpty()) {
+            throw new SignatureException(captureFile + " contains no records");
+        }
+        return corpus;
+    }
+
+    /**
+     * Runs the warmup and measured passes and prints the report.
+     */
+    public void run(PrintStream out) throws Exception {
+        VerificationListener listener = new VerificationListener() {
+            @Override
+            public void stageCompleted(VerificationStage stage, String algorithm, long durationNanos) {
+                if (recording) {
+                    stageLatencies.get(stage).recordValue(durationNanos);
+                }
+            }
+        };
+
+        verificationService.addListener(listener);
+        try {
+            if (warmup > 0) {
+                replay((long) warmup * corpus.size(), 0);
+            }
+            recording = true;
+            long start = System.nanoTime();
+            replay((long) iterations * corpus.size(), rate);
+            long elapsed = System.nanoTime() - start;
+            recording = false;
+            print(out, elapsed);
+        } finally {
+            verificationService.removeListener(listener);
+        }
+    }
+
+    private void replay(long requests, double rate) throws Exception {
+        AtomicLong next = new AtomicLong();
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    long i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        long scheduled = start + i * interval;
+                        long now;
+                        while (interval > 0 && (now = System.nanoTime()) < scheduled) {
+                            LockSupport.parkNanos(scheduled - now);
+                        }
+                        replayOne(corpus.get((int) (i % corpus.size())), interval > 0 ? scheduled : System.nanoTime());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void replayOne(CapturedRequest request, long start) {
+        try {
+            if (received) {
+                verificationService.verifyMessage(new ByteArrayInputStream(request.getBody()), request.getHeaders(),
+                        request.getUri(), request.getMethod());
+            } else {
+                verificationService.verifyCaptured(request);
+            }
+            if (recording) {
+                verified.increment();
+            }
+        } catch (SignatureException ex) {
+            if (recording) {
+                rejected.increment();
+                rejections.computeIfAbsent(String.valueOf(ex.getMessage()), message -> new LongAdder()).increment();
+            }
+        }
+        if (recording) {
+            latency.recordValue(System.nanoTime() - start);
+        }
+    }
+
+    private void print(PrintStream out, long elapsedNanos) {
+        long total = verified.sum() + rejected.sum();
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Replayed %d requests on %d threads in %.3f s: %.1f requests/s (target: %s)%n",
+                total, threads, seconds, total / seconds, rate > 0 ? String.format("%.1f/s", rate) : "max");
+        out.printf("Verified: %d, rejected: %d%n", verified.sum(), rejected.sum());
+        out.println();
+
+        out.printf("%-20s %10s %10s %10s %10s %10s %10s %10s%n", "latency (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max");
+        printHistogram(out, "request", latency);
+        printHistogram(out, "parse", stageLatencies.get(VerificationStage.PARSE));
+        printHistogram(out, "key (JWE decrypt)", stageLatencies.get(VerificationStage.KEY));
+        printHistogram(out, "digest", stageLatencies.get(VerificationStage.DIGEST));
+        printHistogram(out, "base", stageLatencies.get(VerificationStage.BASE));
+        printHistogram(out, "signature", stageLatencies.get(VerificationStage.SIGNATURE));
+
+        if (!rejections.isEmpty()) {
+            out.println();
+            out.println("Rejections:");
+            rejections.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                    .limit(10)
+                    .forEach(e -> out.printf("%10d  %s%n", e.getValue().sum(), e.getKey()));
+        }
+    }
+
+    private static void printHistogram(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-20s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getTotalCount(),
+                histogram.getMean() / 1e3,
+                histogram.getValueAtPercentile(50) / 1e3,
+                histogram.getValueAtPercentile(90) / 1e3,
+                histogram.getValueAtPercentile(99) / 1e3,
+                histogram.getValueAtPercentile(99.9) / 1e3,
+                histogram.getMaxValue() / 1e3);
+    }
+}
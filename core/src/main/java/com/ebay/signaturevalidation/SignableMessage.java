@@ -0,0 +1,61 @@
+package com.ebay.signaturevalidation;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An outgoing HTTP message that {@link SignatureService} can add its headers to.
+ */
+public interface SignableMessage extends MessageComponents {
+
+    /**
+     * Sets a header field, replacing any values it had.
+     */
+    void setHeader(String name, String value);
+
+    /**
+     * Adds a value to a header field, keeping any values it had.
+     */
+    void addHeader(String name, String value);
+
+    /**
+     * A message whose header fields are kept in the given map, keyed by lowercase name. The values of a repeated field
+     * are read joined with ", ", as in a received message.
+     */
+    static SignableMessage of(String method, URI uri, Map<String, List<String>> headers) {
+        return new SignableMessage() {
+            @Override
+            public String getMethod() {
+                return method;
+            }
+
+            @Override
+            public URI getUri() {
+                return uri;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                List<String> values = headers.get(name.toLowerCase());
+                if (values == null || values.isEmpty()) {
+                    return null;
+                }
+                return values.size() == 1 ? values.get(0) : String.join(", ", values);
+            }
+
+            @Override
+            public void setHeader(String name, String value) {
+                List<String> values = new ArrayList<>(1);
+                values.add(value);
+                headers.put(name.toLowerCase(), values);
+            }
+
+            @Override
+            public void addHeader(String name, String value) {
+                headers.computeIfAbsent(name.toLowerCase(), key -> new ArrayList<>(1)).add(value);
+            }
+        };
+    }
+}
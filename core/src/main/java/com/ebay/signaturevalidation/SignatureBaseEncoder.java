@@ -0,0 +1,158 @@
+package com.ebay.signaturevalidation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the RFC 9421 signature base of a message as UTF-8 straight into a reusable byte buffer, which is then passed
+ * to the signer or verifier as is.
+ * <p>
+ * Each thread has its own encoder, obtained with {@link #forCurrentThread()}. No intermediate Strings are built, so
+ * encoding a signature base creates no garbage once the buffer has grown to fit. The buffer is only valid until the
+ * same thread encodes the next base. The components are encoded from a {@link ComponentPlan}, which resolves their
+ * names once rather than for every message.
+ */
+public final class SignatureBaseEncoder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<SignatureBaseEncoder> ENCODERS = ThreadLocal.withInitial(SignatureBaseEncoder::new);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    private SignatureBaseEncoder() {
+    }
+
+    /**
+     * Returns the calling thread's encoder, emptied. A buffer that grew for an unusually large base is released
+     * rather than kept for the lifetime of the thread.
+     */
+    public static SignatureBaseEncoder forCurrentThread() {
+        SignatureBaseEncoder encoder = ENCODERS.get();
+        if (encoder.buffer.length > MAX_RETAINED_CAPACITY) {
+            encoder.buffer = new byte[INITIAL_CAPACITY];
+        }
+        encoder.length = 0;
+        return encoder;
+    }
+
+    /**
+     * Encodes the signature base covering the given components, followed by the "@signature-params" line.
+     *
+     * @param signatureParams the signature parameters as they appear in Signature-Input
+     */
+    public SignatureBaseEncoder encode(List<SignatureInput.Component> components, MessageComponents message,
+                                       String signatureParams) throws SignatureException {
+        return encode(ComponentPlan.compile(components), message, signatureParams);
+    }
+
+    /**
+     * Encodes the signature base covering the components of a compiled plan, followed by the "@signature-params" line.
+     *
+     * @param signatureParams the signature parameters as they appear in Signature-Input
+     */
+    public SignatureBaseEncoder encode(ComponentPlan plan, MessageComponents message, String signatureParams) throws SignatureException {
+        length = 0;
+        for (int i = 0, n = plan.size(); i < n; i++) {
+            writeBytes(plan.prefix(i));
+            writeUtf8(plan.value(i, message));
+            writeByte('\n');
+        }
+
+        writeAscii("\"@signature-params\": ");
+        writeUtf8(signatureParams);
+        return this;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Decodes the current base, for logging.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) b;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void writeAscii(String s) {
+        int n = s.length();
+        ensureCapacity(n);
+        s.getBytes(0, n, buffer, length);
+        length += n;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * Encodes like {@code s.getBytes(UTF_8)}, including the replacement of unpaired surrogates with '?'.
+     */
+    @SuppressWarnings("deprecation")
+    private void writeUtf8(String s) {
+        int n = s.length();
+        int ascii = 0;
+        while (ascii < n && s.charAt(ascii) < 0x80) {
+            ascii++;
+        }
+        // Header values are almost always ASCII, which String.getBytes(int, int, byte[], int) copies in bulk
+        ensureCapacity(ascii);
+        s.getBytes(0, ascii, buffer, length);
+        length += ascii;
+        if (ascii == n) {
+            return;
+        }
+
+        // Worst case is three bytes per UTF-16 char; a surrogate pair takes four bytes for two chars
+        ensureCapacity((n - ascii) * 3);
+        byte[] buf = buffer;
+        int pos = length;
+        for (int i = ascii; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        length = pos;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = length + additional;
+        if (required > buffer.length) {
+            byte[] grown = new byte[Math.max(required, buffer.length * 2)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
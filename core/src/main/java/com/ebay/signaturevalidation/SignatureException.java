@@ -0,0 +1,51 @@
+package com.ebay.signaturevalidation;
+
+public class SignatureException extends Exception {
+
+    private final FailureReason reason;
+
+    public SignatureException() {
+        this.reason = FailureReason.ERROR;
+    }
+
+    public SignatureException(String message) {
+        super(message);
+        this.reason = FailureReason.ERROR;
+    }
+
+    public SignatureException(String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reasonOf(cause);
+    }
+
+    public SignatureException(Throwable cause) {
+        super(cause);
+        this.reason = reasonOf(cause);
+    }
+
+    public SignatureException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+        this.reason = reasonOf(cause);
+    }
+
+    public SignatureException(FailureReason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public SignatureException(FailureReason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    /**
+     * The reason given when the exception was created, or the reason of the SignatureException it wraps.
+     */
+    public FailureReason getReason() {
+        return reason;
+    }
+
+    private static FailureReason reasonOf(Throwable cause) {
+        return cause instanceof SignatureException ? ((SignatureException) cause).getReason() : FailureReason.ERROR;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ebay.signaturevalidation;
+
+import java.util.List;
+
+/**
+ * One labelled member of a Signature-Input header: the covered components and the signature parameters.
+ */
+public final class SignatureInput {
+
+    private final String label;
+    private final List<Component> components;
+    private final String componentList;
+    private final String value;
+    private final Long created;
+    private final Long expires;
+    private final String keyId;
+    private final String algorithm;
+    private final String nonce;
+    private final String tag;
+
+    SignatureInput(String label, List<Component> components, String componentList, String value, Long created,
+                   Long expires, String keyId, String algorithm, String nonce, String tag) {
+        this.label = label;
+        this.components = components;
+        this.componentList = componentList;
+        this.value = value;
+        this.created = created;
+        this.expires = expires;
+        this.keyId = keyId;
+        this.algorithm = algorithm;
+        this.nonce = nonce;
+        this.tag = tag;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    /**
+     * The compiled plan of the covered components, shared with every other Signature-Input with the same inner list.
+     */
+    public ComponentPlan getPlan() throws SignatureException {
+        return ComponentPlan.forComponents(componentList, components);
+    }
+
+    /**
+     * The inner list and its parameters exactly as they appear in the header, used for the "@signature-params" line.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public Long getCreated() {
+        return created;
+    }
+
+    public Long getExpires() {
+        return expires;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getNonce() {
+        return nonce;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * A component identifier, such as {@code "@method"} or {@code "content-digest";tr}.
+     */
+    public static final class Component {
+        private final String name;
+        private final String parameters;
+
+        Component(String name, String parameters) {
+            this.name = name;
+            this.parameters = parameters;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The component parameters as they appear in the header, including the leading ";", or an empty string.
+         */
+        public String getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + name + "\"" + parameters;
+        }
+    }
+}
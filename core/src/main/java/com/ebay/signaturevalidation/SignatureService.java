@@ -0,0 +1,308 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.util.encoders.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+public class SignatureService {
+
+    private final KeypairService keypairService;
+    private final Clock clock;
+    private final List<SigningListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Logger logger = LoggerFactory.getLogger(SignatureService.class.getName());
+    private static final List<SignatureInput.Component> SIGNATURE_PARAMS = components("content-digest", "x-ebay-signature-key", "@method", "@path", "@authority");
+    private static final List<SignatureInput.Component> SIGNATURE_PARAMS_WITHOUT_BODY = components("x-ebay-signature-key", "@method", "@path", "@authority");
+    private static final ComponentPlan SIGNATURE_PLAN = compile(SIGNATURE_PARAMS);
+    private static final ComponentPlan SIGNATURE_PLAN_WITHOUT_BODY = compile(SIGNATURE_PARAMS_WITHOUT_BODY);
+    private static final List<SignatureInput.Component> RESPONSE_PARAMS = components("@status", "content-digest", "x-ebay-signature-key");
+    private static final List<SignatureInput.Component> RESPONSE_PARAMS_WITHOUT_BODY = components("@status", "x-ebay-signature-key");
+    private static final ComponentPlan RESPONSE_PLAN = compile(RESPONSE_PARAMS);
+    private static final ComponentPlan RESPONSE_PLAN_WITHOUT_BODY = compile(RESPONSE_PARAMS_WITHOUT_BODY);
+
+    // Replaced as a whole by KeyReloader; each signing takes one reference and uses it throughout
+    private volatile SigningKey signingKey;
+
+
+    /**
+     * Loads the signing key pair of the keypairService's algorithm.
+     */
+    public SignatureService(KeypairService keypairService) throws SignatureException {
+        this(keypairService, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock the clock the created parameter of each signature is read from
+     */
+    SignatureService(KeypairService keypairService, Clock clock) throws SignatureException {
+        this.keypairService = keypairService;
+        this.clock = clock;
+        this.signingKey = loadSigningKey(keypairService.getKeyring());
+    }
+
+
+    /**
+     * Adds the Content-Digest, x-ebay-signature-key, Signature-Input and Signature headers to the request.
+     * <p>
+     * All per-request state is kept on the stack, so a single instance can sign any number of requests concurrently.
+     */
+    public void signMessage(SignableMessage request, byte[] body) throws SignatureException {
+        sign(request, () -> {
+            if (body != null && body.length > 0) {
+                return newDigest().digest(body);
+            }
+            return null;
+        }, null, false);
+    }
+
+    /**
+     * Signs a request whose body is read from a stream, for example a file-backed Resource. The Content-Digest is
+     * calculated in a single pass over the stream, which is consumed but not closed.
+     */
+    public void signMessage(SignableMessage request, InputStream body) throws SignatureException {
+        sign(request, () -> {
+            MessageDigest digest = newDigest();
+            long length = 0;
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    length += read;
+                }
+            } catch (IOException ex) {
+                throw new SignatureException("Error reading message body: " + ex.getMessage(), ex);
+            }
+            return length > 0 ? digest.digest() : null;
+        }, null, false);
+    }
+
+    /**
+     * Signs a request for which the SHA-256 digest of the body has already been calculated.
+     *
+     * @param bodyDigest SHA-256 digest of the body, or null if the request has no body
+     */
+    public void signDigestedMessage(SignableMessage request, byte[] bodyDigest) throws SignatureException {
+        sign(request, null, bodyDigest, false);
+    }
+
+    /**
+     * Signs a response for which the SHA-256 digest of the body has already been calculated, for example while it was
+     * written. The signature covers @status, Content-Digest and x-ebay-signature-key.
+     *
+     * @param response the response, whose {@link MessageComponents#getStatus} is its status code
+     * @param bodyDigest SHA-256 digest of the body, or null if the response has no body
+     */
+    public void signDigestedResponse(SignableMessage response, byte[] bodyDigest) throws SignatureException {
+        sign(response, null, bodyDigest, true);
+    }
+
+    public void addListener(SigningListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SigningListener listener) {
+        listeners.remove(listener);
+    }
+
+    public String getAlgorithm() {
+        return signingKey.algorithm;
+    }
+
+    /**
+     * Loads the key pair from the keys folder and prepares it for signing, with its JWE encrypted by the primary key of
+     * the given keyring, without making it the current signing key.
+     *
+     * @throws SignatureException if the key pair cannot be read or its private and public keys do not match
+     */
+    SigningKey loadSigningKey(MasterKeyring keyring) throws SignatureException {
+        KeyPair keyPair = keypairService.loadExistingKeyPair();
+        PreparedSigner signer = PreparedSigner.forPrivateKey(keyPair.getPrivate());
+
+        // A key pair caught halfway through being replaced has a private key that does not match its public key
+        byte[] probe = "signing key check".getBytes(StandardCharsets.US_ASCII);
+        byte[] signature = signer.sign(probe, 0, probe.length);
+        if (!PreparedVerifier.forPublicKey(keyPair.getPublic()).verify(probe, 0, probe.length, signature)) {
+            throw new SignatureException("Private key does not match public key");
+        }
+
+        return new SigningKey(signer, keypairService.getJWE(keyPair.getPublic(), keyring));
+    }
+
+    /**
+     * Makes the given key the one requests are signed with. Signings already in progress finish with the previous one.
+     */
+    void setSigningKey(SigningKey signingKey) {
+        this.signingKey = signingKey;
+    }
+
+    /**
+     * Signs the request or response, hashing the body with bodyHasher if given, or else using the given digest, and
+     * reports the outcome to the listeners.
+     */
+    private void sign(SignableMessage request, BodyHasher bodyHasher, byte[] digest, boolean response) throws SignatureException {
+        long start = System.nanoTime();
+        SigningKey key = signingKey;
+        try {
+            long stageStart = start;
+            if (bodyHasher != null) {
+                digest = bodyHasher.digest();
+                stageStart = stageCompleted(VerificationStage.DIGEST, key, stageStart);
+            }
+
+            if (digest != null) {
+                addDigestHeader(request, digest);
+            }
+            addSignatureKeyHeader(request, key.jwt);
+            if (response && digest != null) {
+                addSignatureHeaders(request, key, RESPONSE_PARAMS, RESPONSE_PLAN, stageStart);
+            } else if (response) {
+                addSignatureHeaders(request, key, RESPONSE_PARAMS_WITHOUT_BODY, RESPONSE_PLAN_WITHOUT_BODY, stageStart);
+            } else if (digest != null) {
+                addSignatureHeaders(request, key, SIGNATURE_PARAMS, SIGNATURE_PLAN, stageStart);
+            } else {
+                addSignatureHeaders(request, key, SIGNATURE_PARAMS_WITHOUT_BODY, SIGNATURE_PLAN_WITHOUT_BODY, stageStart);
+            }
+        } catch (SignatureException ex) {
+            long duration = System.nanoTime() - start;
+            for (SigningListener listener : listeners) {
+                listener.signingFailed(key.algorithm, ex, duration);
+            }
+            throw ex;
+        }
+
+        long duration = System.nanoTime() - start;
+        for (SigningListener listener : listeners) {
+            listener.messageSigned(key.algorithm, duration);
+        }
+        logger.debug("Message signed");
+    }
+
+    /**
+     * Reports a completed stage to the listeners and returns the current time, the start of the next stage.
+     */
+    private long stageCompleted(VerificationStage stage, SigningKey key, long stageStart) {
+        long now = System.nanoTime();
+        for (SigningListener listener : listeners) {
+            listener.stageCompleted(stage, key.algorithm, now - stageStart);
+        }
+        return now;
+    }
+
+    private void addSignatureHeaders(SignableMessage request, SigningKey key, List<SignatureInput.Component> signatureParams,
+                                     ComponentPlan plan, long stageStart) throws SignatureException {
+        String signatureInput = calculateSignatureInput(signatureParams);
+        String signature = getSignatureValue(request, key, plan, signatureInput, stageStart);
+
+        try {
+            request.addHeader("Signature", "sig1=:" + signature + ":");
+            request.addHeader("Signature-Input", "sig1=" + signatureInput);
+//            logger.info("signature: {}", request.getHeader("signature"));
+        } catch (Exception ex) {
+            throw new SignatureException("Error adding Signature and Signature-Input headers: " + ex.getMessage(), ex);
+        }
+    }
+
+    private MessageDigest newDigest() throws SignatureException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new SignatureException("Error creating message digest: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void addDigestHeader(SignableMessage request, byte[] bodyDigest) throws SignatureException {
+        try {
+            String digestString = "sha-256=:" + new String(Base64.encode(bodyDigest)) + ":";
+
+            request.setHeader("Content-digest", digestString);
+        } catch (Exception ex) {
+            throw new SignatureException("Error adding Content-Digest header: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void addSignatureKeyHeader(SignableMessage request, String jwt) throws SignatureException {
+        try {
+            request.setHeader("x-ebay-signature-key", jwt);
+        } catch (Exception ex) {
+            throw new SignatureException("Error adding x-ebay-signature-key header: " + ex.getMessage(), ex);
+        }
+    }
+
+    private String getSignatureValue(SignableMessage request, SigningKey key, ComponentPlan plan, String signatureInput,
+                                     long stageStart) throws SignatureException {
+        SignatureBaseEncoder base = SignatureBaseEncoder.forCurrentThread()
+                .encode(plan, request, signatureInput);
+        stageStart = stageCompleted(VerificationStage.BASE, key, stageStart);
+        byte[] signature = key.signer.sign(base.getBuffer(), 0, base.getLength());
+        stageCompleted(VerificationStage.SIGNATURE, key, stageStart);
+
+        return new String(Base64.encode(signature));
+    }
+
+    private String calculateSignatureInput(List<SignatureInput.Component> signatureParams) {
+        StringBuilder signatureInputBuf = new StringBuilder();
+        signatureInputBuf.append("(");
+
+        for (int i = 0; i < signatureParams.size(); i++) {
+            signatureInputBuf.append(signatureParams.get(i));
+            if (i < signatureParams.size() - 1) {
+                signatureInputBuf.append(" ");
+            }
+        }
+
+        signatureInputBuf.append(");created=");
+        signatureInputBuf.append(clock.millis() / 1000);
+        return signatureInputBuf.toString();
+    }
+
+    private static List<SignatureInput.Component> components(String... names) {
+        List<SignatureInput.Component> components = new ArrayList<>(names.length);
+        for (String name : names) {
+            components.add(new SignatureInput.Component(name, ""));
+        }
+        return List.copyOf(components);
+    }
+
+    private static ComponentPlan compile(List<SignatureInput.Component> components) {
+        try {
+            return ComponentPlan.compile(components);
+        } catch (SignatureException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private interface BodyHasher {
+        /**
+         * @return the SHA-256 digest of the body, or null if the request has no body
+         */
+        byte[] digest() throws SignatureException;
+    }
+
+    /**
+     * An immutable signer with the algorithm and x-ebay-signature-key JWE of its key pair.
+     */
+    static final class SigningKey {
+        private final PreparedSigner signer;
+        private final String algorithm;
+        private final String jwt;
+
+        private SigningKey(PreparedSigner signer, String jwt) {
+            this.signer = signer;
+            this.algorithm = signer.getAlgorithm();
+            this.jwt = jwt;
+        }
+    }
+}
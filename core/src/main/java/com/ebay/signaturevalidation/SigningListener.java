@@ -0,0 +1,19 @@
+package com.ebay.signaturevalidation;
+
+/**
+ * Receives timings and outcomes from {@link SignatureService}. Register it with {@link SignatureService#addListener}.
+ * <p>
+ * Signing reports the DIGEST (when the body is hashed by the service), BASE and SIGNATURE stages. Callbacks run on the
+ * signing thread and must be thread-safe and cheap.
+ */
+public interface SigningListener {
+
+    default void stageCompleted(VerificationStage stage, String algorithm, long durationNanos) {
+    }
+
+    default void messageSigned(String algorithm, long durationNanos) {
+    }
+
+    default void signingFailed(String algorithm, SignatureException ex, long durationNanos) {
+    }
+}
@@ -0,0 +1,435 @@
+package com.ebay.signaturevalidation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass parser for the RFC 8941 structured field dictionaries used by HTTP message signatures: Signature-Input,
+ * Signature and Content-Digest.
+ * <p>
+ * The parser walks the header characters once, without regular expressions. It only allocates the values it returns:
+ * labels, component names and parameter values. Keys are compared in place and unknown parameters are validated and
+ * skipped without being materialised.
+ */
+public final class StructuredFieldParser {
+
+    private static final int MAX_INTEGER_DIGITS = 15;
+    private static final int MAX_DECIMAL_INTEGER_DIGITS = 12;
+    private static final int MAX_DECIMAL_FRACTION_DIGITS = 3;
+
+    private final String input;
+    private final String fieldName;
+    private final int length;
+    private int pos;
+
+    private StructuredFieldParser(String input, String fieldName) {
+        this.input = input;
+        this.fieldName = fieldName;
+        this.length = input.length();
+    }
+
+    /**
+     * Parses a Signature-Input header. Members appear in header order; a repeated label replaces the earlier member
+     * with the same label, as RFC 8941 requires.
+     */
+    public static List<SignatureInput> parseSignatureInput(String header) throws SignatureException {
+        StructuredFieldParser parser = new StructuredFieldParser(header, "Signature-Input");
+        List<SignatureInput> signatureInputs = new ArrayList<>(1);
+
+        parser.skipSP();
+        parser.expectMore();
+        do {
+            String label = parser.parseKey();
+            parser.expect('=');
+            SignatureInput signatureInput = parser.parseSignatureInputMember(label);
+
+            int existing = indexOf(signatureInputs, label);
+            if (existing >= 0) {
+                signatureInputs.set(existing, signatureInput);
+            } else {
+                signatureInputs.add(signatureInput);
+            }
+        } while (parser.nextMember());
+
+        return signatureInputs;
+    }
+
+    /**
+     * Parses a dictionary whose members are all byte sequences, such as Signature or Content-Digest. Returns the
+     * Base64 content of each member, without the surrounding colons, keyed by member key in header order. Member
+     * parameters are validated and ignored.
+     */
+    public static Map<String, String> parseByteSequenceDictionary(String header, String fieldName) throws SignatureException {
+        StructuredFieldParser parser = new StructuredFieldParser(header, fieldName);
+        Map<String, String> members = new LinkedHashMap<>(2);
+
+        parser.skipSP();
+        parser.expectMore();
+        do {
+            String key = parser.parseKey();
+            parser.expect('=');
+            if (parser.peek() != ':') {
+                throw parser.error("expected a byte sequence for member " + key);
+            }
+            members.put(key, parser.parseByteSequence());
+            parser.skipParameters();
+        } while (parser.nextMember());
+
+        return members;
+    }
+
+    private static int indexOf(List<SignatureInput> signatureInputs, String label) {
+        for (int i = 0; i < signatureInputs.size(); i++) {
+            if (signatureInputs.get(i).getLabel().equals(label)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private SignatureInput parseSignatureInputMember(String label) throws SignatureException {
+        int valueStart = pos;
+        List<SignatureInput.Component> components = parseComponents();
+        String componentList = input.substring(valueStart, pos);
+
+        Long created = null;
+        Long expires = null;
+        String keyId = null;
+        String algorithm = null;
+        String nonce = null;
+        String tag = null;
+
+        while (pos < length && input.charAt(pos) == ';') {
+            pos++;
+            skipSP();
+            int keyStart = pos;
+            int keyEnd = skipKey();
+            expect('=');
+
+            if (keyEquals(keyStart, keyEnd, "created")) {
+                created = parseInteger();
+            } else if (keyEquals(keyStart, keyEnd, "expires")) {
+                expires = parseInteger();
+            } else if (keyEquals(keyStart, keyEnd, "keyid")) {
+                keyId = parseString();
+            } else if (keyEquals(keyStart, keyEnd, "alg")) {
+                algorithm = parseString();
+            } else if (keyEquals(keyStart, keyEnd, "nonce")) {
+                nonce = parseString();
+            } else if (keyEquals(keyStart, keyEnd, "tag")) {
+                tag = parseString();
+            } else {
+                skipBareItem();
+            }
+        }
+
+        return new SignatureInput(label, components, componentList, input.substring(valueStart, pos),
+                created, expires, keyId, algorithm, nonce, tag);
+    }
+
+    private List<SignatureInput.Component> parseComponents() throws SignatureException {
+        expect('(');
+        List<SignatureInput.Component> components = new ArrayList<>(6);
+
+        while (true) {
+            skipSP();
+            expectMore();
+            if (input.charAt(pos) == ')') {
+                pos++;
+                return components;
+            }
+
+            if (input.charAt(pos) != '"') {
+                throw error("expected a quoted component identifier");
+            }
+            String name = parseString();
+            int parametersStart = pos;
+            skipParameters();
+            String parameters = parametersStart == pos ? "" : input.substring(parametersStart, pos);
+            components.add(new SignatureInput.Component(name, parameters));
+
+            expectMore();
+            char c = input.charAt(pos);
+            if (c != ' ' && c != ')') {
+                throw error("expected a space or ')' after component " + name);
+            }
+        }
+    }
+
+    private void skipParameters() throws SignatureException {
+        while (pos < length && input.charAt(pos) == ';') {
+            pos++;
+            skipSP();
+            skipKey();
+            if (pos < length && input.charAt(pos) == '=') {
+                pos++;
+                skipBareItem();
+            }
+        }
+    }
+
+    private void skipBareItem() throws SignatureException {
+        expectMore();
+        char c = input.charAt(pos);
+        if (c == '-' || isDigit(c)) {
+            skipNumber();
+        } else if (c == '"') {
+            skipString();
+        } else if (c == ':') {
+            parseByteSequence();
+        } else if (c == '?') {
+            pos++;
+            expectMore();
+            char b = input.charAt(pos);
+            if (b != '0' && b != '1') {
+                throw error("invalid boolean");
+            }
+            pos++;
+        } else if (c == '*' || isAlpha(c)) {
+            skipToken();
+        } else {
+            throw error("unexpected character '" + c + "'");
+        }
+    }
+
+    private String parseKey() throws SignatureException {
+        int start = pos;
+        return input.substring(start, skipKey());
+    }
+
+    private int skipKey() throws SignatureException {
+        expectMore();
+        char c = input.charAt(pos);
+        if (c != '*' && !isLowerAlpha(c)) {
+            throw error("expected a key");
+        }
+        pos++;
+        while (pos < length) {
+            c = input.charAt(pos);
+            if (isLowerAlpha(c) || isDigit(c) || c == '_' || c == '-' || c == '.' || c == '*') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    private boolean keyEquals(int start, int end, String key) {
+        return end - start == key.length() && input.regionMatches(start, key, 0, key.length());
+    }
+
+    private long parseInteger() throws SignatureException {
+        int start = pos;
+        boolean negative = false;
+        if (pos < length && input.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (pos < length && isDigit(input.charAt(pos))) {
+            value = value * 10 + (input.charAt(pos) - '0');
+            pos++;
+            if (++digits > MAX_INTEGER_DIGITS) {
+                throw error("integer too long");
+            }
+        }
+        if (digits == 0) {
+            pos = start;
+            throw error("expected an integer");
+        }
+        if (pos < length && input.charAt(pos) == '.') {
+            throw error("expected an integer, found a decimal");
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipNumber() throws SignatureException {
+        if (input.charAt(pos) == '-') {
+            pos++;
+        }
+        int integerDigits = 0;
+        while (pos < length && isDigit(input.charAt(pos))) {
+            pos++;
+            integerDigits++;
+        }
+        if (integerDigits == 0) {
+            throw error("expected a digit");
+        }
+
+        if (pos < length && input.charAt(pos) == '.') {
+            if (integerDigits > MAX_DECIMAL_INTEGER_DIGITS) {
+                throw error("decimal too long");
+            }
+            pos++;
+            int fractionDigits = 0;
+            while (pos < length && isDigit(input.charAt(pos))) {
+                pos++;
+                fractionDigits++;
+            }
+            if (fractionDigits == 0 || fractionDigits > MAX_DECIMAL_FRACTION_DIGITS) {
+                throw error("invalid decimal fraction");
+            }
+        } else if (integerDigits > MAX_INTEGER_DIGITS) {
+            throw error("integer too long");
+        }
+    }
+
+    private String parseString() throws SignatureException {
+        expect('"');
+        int start = pos;
+        StringBuilder escaped = null;
+
+        while (pos < length) {
+            char c = input.charAt(pos);
+            if (c == '"') {
+                String value = escaped == null ? input.substring(start, pos) : escaped.append(input, start, pos).toString();
+                pos++;
+                return value;
+            } else if (c == '\\') {
+                if (pos + 1 >= length) {
+                    throw error("unterminated escape in string");
+                }
+                char next = input.charAt(pos + 1);
+                if (next != '"' && next != '\\') {
+                    throw error("invalid escape in string");
+                }
+                if (escaped == null) {
+                    escaped = new StringBuilder(pos - start + 16);
+                }
+                escaped.append(input, start, pos).append(next);
+                pos += 2;
+                start = pos;
+            } else if (c < 0x20 || c > 0x7e) {
+                throw error("invalid character in string");
+            } else {
+                pos++;
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private void skipString() throws SignatureException {
+        pos++;
+        while (pos < length) {
+            char c = input.charAt(pos);
+            if (c == '"') {
+                pos++;
+                return;
+            } else if (c == '\\') {
+                if (pos + 1 >= length || (input.charAt(pos + 1) != '"' && input.charAt(pos + 1) != '\\')) {
+                    throw error("invalid escape in string");
+                }
+                pos += 2;
+            } else if (c < 0x20 || c > 0x7e) {
+                throw error("invalid character in string");
+            } else {
+                pos++;
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private void skipToken() {
+        pos++;
+        while (pos < length && isTokenChar(input.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private String parseByteSequence() throws SignatureException {
+        expect(':');
+        int start = pos;
+        while (pos < length) {
+            char c = input.charAt(pos);
+            if (c == ':') {
+                String value = input.substring(start, pos);
+                pos++;
+                return value;
+            } else if (isAlpha(c) || isDigit(c) || c == '+' || c == '/' || c == '=') {
+                pos++;
+            } else {
+                throw error("invalid character in byte sequence");
+            }
+        }
+        throw error("unterminated byte sequence");
+    }
+
+    /**
+     * Moves past the separator between two dictionary members. Returns false at the end of the header.
+     */
+    private boolean nextMember() throws SignatureException {
+        skipOWS();
+        if (pos >= length) {
+            return false;
+        }
+        expect(',');
+        skipOWS();
+        if (pos >= length) {
+            throw error("trailing comma");
+        }
+        return true;
+    }
+
+    private void expect(char expected) throws SignatureException {
+        if (pos >= length || input.charAt(pos) != expected) {
+            throw error("expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    private void expectMore() throws SignatureException {
+        if (pos >= length) {
+            throw error("unexpected end of header");
+        }
+    }
+
+    private char peek() {
+        return pos < length ? input.charAt(pos) : 0;
+    }
+
+    private void skipSP() {
+        while (pos < length && input.charAt(pos) == ' ') {
+            pos++;
+        }
+    }
+
+    private void skipOWS() {
+        while (pos < length && (input.charAt(pos) == ' ' || input.charAt(pos) == '\t')) {
+            pos++;
+        }
+    }
+
+    private SignatureException error(String message) {
+        return new SignatureException(FailureReason.MALFORMED_HEADER, "Invalid " + fieldName + " header at position " + pos + ": " + message);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLowerAlpha(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isAlpha(char c) {
+        return isLowerAlpha(c) || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isTokenChar(char c) {
+        if (isAlpha(c) || isDigit(c)) {
+            return true;
+        }
+        switch (c) {
+            case '!': case '#': case '$': case '%': case '&': case '\'': case '*': case '+': case '-': case '.':
+            case '^': case '_': case '`': case '|': case '~': case ':': case '/':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
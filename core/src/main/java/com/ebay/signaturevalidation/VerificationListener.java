@@ -0,0 +1,24 @@
+package com.ebay.signaturevalidation;
+
+/**
+ * Receives timings and outcomes from {@link VerificationService}. Register it with
+ * {@link VerificationService#addListener}.
+ * <p>
+ * Callbacks run on the verifying thread, which for the per-label stages may be a crypto pool thread, and so must be
+ * thread-safe and cheap. The algorithm is that of the public key from x-ebay-signature-key, or null if the message
+ * was rejected before the key was resolved.
+ */
+public interface VerificationListener {
+
+    /**
+     * A stage finished successfully. BASE and SIGNATURE are reported once per verified label.
+     */
+    default void stageCompleted(VerificationStage stage, String algorithm, long durationNanos) {
+    }
+
+    default void messageVerified(String algorithm, long durationNanos) {
+    }
+
+    default void messageRejected(String algorithm, SignatureException ex, long durationNanos) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.ebay.signaturevalidation;
+
+/**
+ * Decides how the results of several labelled signatures on one message combine.
+ */
+public enum VerificationPolicy {
+    /**
+     * Every selected signature must verify.
+     */
+    ALL,
+    /**
+     * At least one selected signature must verify.
+     */
+    ANY
+}
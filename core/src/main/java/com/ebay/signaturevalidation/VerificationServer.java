@@ -0,0 +1,259 @@
+package com.ebay.signaturevalidation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@code /verifysignature} on the JDK's built-in HTTP server, for running the verification as a sidecar
+ * without Spring MVC. Requests are verified on the server's worker threads by calling
+ * {@link VerificationService#verifyMessage} directly, with the same responses as the Spring Boot application: 200 and
+ * "OK" when the signature verifies, 403 and the failure message when it does not.
+ * <p>
+ * Connections are kept alive between requests. Each worker thread hashes request bodies through its own read buffer,
+ * so the body is never copied or held in memory as a whole. Run it with:
+ * <pre>
+ * mvn -pl core compile exec:java -Dexec.mainClass=com.ebay.signaturevalidation.VerificationServer \
+ *     -Dexec.args="--port 8080 --threads 8"
+ * </pre>
+ * The server writes the response headers and body separately. With Nagle's algorithm on, the body waits for the
+ * client's delayed ACK of the headers, adding 40 ms to every kept-alive request. {@link #main} turns it off with the
+ * system property {@code sun.net.httpserver.nodelay}; when embedding the server, start the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true}. The property applies to every {@code HttpServer} in the JVM and is only
+ * read before the first one is created.
+ */
+public final class VerificationServer {
+
+    public static final String PATH = "/verifysignature";
+
+    private static final String USAGE = "Usage: VerificationServer [--port N] [--threads N] [--keys FOLDER]"
+            + " [--key-cache-size N]";
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final byte[] OK = "OK".getBytes(StandardCharsets.UTF_8);
+
+    private final Logger logger = LoggerFactory.getLogger(VerificationServer.class.getName());
+    private final VerificationService verificationService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    /**
+     * @param address the address to listen on; port 0 picks a free port
+     * @param threads number of worker threads verifying requests
+     */
+    public VerificationServer(VerificationService verificationService, InetSocketAddress address, int threads) throws IOException {
+        this.verificationService = verificationService;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "verification-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        String keysFolder = "keys/";
+        long keyCacheSize = 10000;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--keys":
+                        keysFolder = value;
+                        break;
+                    case "--key-cache-size":
+                        keyCacheSize = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        CryptoExecutor cryptoExecutor = new CryptoExecutor(0, 1024);
+        KeypairService keypairService = new KeypairService("Ed25519", keysFolder);
+        VerificationService verificationService = VerificationService.builder(keypairService, cryptoExecutor)
+                .keyCacheMaximumSize(keyCacheSize)
+                .build();
+        VerificationServer server = new VerificationServer(verificationService, new InetSocketAddress(port), threads);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            cryptoExecutor.shutdown();
+            stopped.countDown();
+        }));
+        server.start();
+        System.out.println("Verifying signatures on http://localhost:" + server.getPort() + PATH);
+        stopped.await();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting connections, gives requests in progress a second to complete and stops the worker threads.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The port the server listens on, which is only known after binding when it was created with port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!exchange.getRequestURI().getRawPath().equals(PATH)) {
+                respond(exchange, 404, new byte[0]);
+                return;
+            }
+            if (!method.equals("GET") && !method.equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                respond(exchange, 405, new byte[0]);
+                return;
+            }
+
+            MessageComponents message = new ExchangeMessage(exchange);
+            try {
+                BodyDigest bodyDigest = digestBody(exchange.getRequestBody(), message.getHeader("content-digest"));
+                verificationService.verifyMessage(bodyDigest, message);
+            } catch (SignatureException ex) {
+                logger.debug("Rejected request: {}", ex.getMessage());
+                respond(exchange, 403, ex.getMessage().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            respond(exchange, 200, OK);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Hashes the body through this worker thread's buffer. Reading it to the end also lets the connection be reused.
+     */
+    private BodyDigest digestBody(InputStream body, String contentDigest) throws IOException {
+        BodyDigest bodyDigest = new BodyDigest(contentDigest);
+        byte[] buffer = buffers.get();
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            bodyDigest.update(buffer, 0, read);
+        }
+        return bodyDigest;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * A view of a received request that reads header fields and URI parts only when a signature covers them. The
+     * target URI is reconstructed from the Host header, as {@code Tools.getURI} does for a servlet request, and only
+     * when a component needs all of it.
+     */
+    private static final class ExchangeMessage implements MessageComponents {
+
+        private final HttpExchange exchange;
+        private volatile URI uri;
+
+        private ExchangeMessage(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public String getMethod() {
+            return exchange.getRequestMethod();
+        }
+
+        @Override
+        public URI getUri() {
+            URI result = uri;
+            if (result == null) {
+                URI requestURI = exchange.getRequestURI();
+                String query = requestURI.getRawQuery();
+                result = URI.create("http://" + getAuthority() + requestURI.getRawPath() + (query != null ? "?" + query : ""));
+                uri = result;
+            }
+            return result;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            List<String> values = exchange.getRequestHeaders().get(name);
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            return values.size() == 1 ? values.get(0) : String.join(", ", values);
+        }
+
+        @Override
+        public String getAuthority() {
+            String host = exchange.getRequestHeaders().getFirst("Host");
+            if (host == null) {
+                InetSocketAddress local = exchange.getLocalAddress();
+                host = local.getHostString() + ":" + local.getPort();
+            }
+            return host;
+        }
+
+        @Override
+        public String getPath() {
+            return exchange.getRequestURI().getPath();
+        }
+
+        @Override
+        public String getScheme() {
+            return "http";
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package com.ebay.signaturevalidation;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.bouncycastle.util.encoders.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+public class VerificationService {
+
+    private static final ReplayCache NO_REPLAY_PROTECTION = new ReplayCache(false, 0, 0);
+    private static final Ed25519BatchVerifier NO_BATCHING = new Ed25519BatchVerifier(false, 0, 1);
+
+    private final KeypairService keypairService;
+    private final CryptoExecutor cryptoExecutor;
+    private final Ed25519BatchVerifier batchVerifier;
+    private final ReplayCache replayCache;
+    private final PublicKeyCache publicKeyCache;
+    private final VerificationPolicy policy;
+    private final Set<String> labels;
+    private final int batchMaxInFlight;
+    private final List<VerificationListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Logger logger = LoggerFactory.getLogger(VerificationService.class.getName());
+
+
+    private VerificationService(Builder builder) {
+        this.keypairService = builder.keypairService;
+        this.cryptoExecutor = builder.cryptoExecutor;
+        this.batchVerifier = builder.batchVerifier;
+        this.replayCache = builder.replayCache;
+        this.publicKeyCache = new PublicKeyCache(builder.keyCacheMaximumSize);
+        this.labels = new LinkedHashSet<>(Arrays.asList(builder.labels));
+        this.policy = builder.policy;
+        this.batchMaxInFlight = builder.batchMaxInFlight;
+    }
+
+    /**
+     * Starts building a service that verifies with the given keys and crypto pool. Everything else is optional; by
+     * default Ed25519 batching and replay protection are off, up to 10000 resolved keys are cached, and only the first
+     * label in Signature-Input is verified.
+     */
+    public static Builder builder(KeypairService keypairService, CryptoExecutor cryptoExecutor) {
+        return new Builder(keypairService, cryptoExecutor);
+    }
+
+
+    public void verifyMessage(String body, Map<String, String> headers, URI uri, String method) throws SignatureException {
+        byte[] bodyBytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        verifyMessage(new ByteArrayInputStream(bodyBytes), headers, uri, method);
+    }
+
+    /**
+     * Verifies a message whose body is read from a stream. The body is hashed incrementally as it is read and is never
+     * held in memory as a whole.
+     */
+    public void verifyMessage(InputStream body, Map<String, String> headers, URI uri, String method) throws SignatureException {
+        verifyMessage(body, null, MessageComponents.of(method, uri, headers), replayCache);
+    }
+
+    /**
+     * Verifies a message whose body has already been hashed, for example as it arrived on a non-blocking connection.
+     * Only the signature cryptography and the final digest comparison are left to do.
+     */
+    public void verifyMessage(BodyDigest bodyDigest, Map<String, String> headers, URI uri, String method) throws SignatureException {
+        verifyMessage(null, bodyDigest, MessageComponents.of(method, uri, headers), replayCache);
+    }
+
+    /**
+     * Verifies a message read through a view of the received request. Only the header fields and URI parts that the
+     * signatures cover, plus the signature headers themselves, are read from it.
+     */
+    public void verifyMessage(InputStream body, MessageComponents message) throws SignatureException {
+        verifyMessage(body, null, message, replayCache);
+    }
+
+    /**
+     * Verifies a message read through a view of the received request, whose body has already been hashed.
+     */
+    public void verifyMessage(BodyDigest bodyDigest, MessageComponents message) throws SignatureException {
+        verifyMessage(null, bodyDigest, message, replayCache);
+    }
+
+    /**
+     * Verifies a captured request, such as a record of a batch or of an archive. Replay protection does not apply: a
+     * captured request is usually verified long after it was signed, and verifying it again is not a replay.
+     */
+    public void verifyCaptured(CapturedRequest request) throws SignatureException {
+        verifyMessage(new ByteArrayInputStream(request.getBody()), null,
+                MessageComponents.of(request.getMethod(), request.getUri(), request.getHeaders()), NO_REPLAY_PROTECTION);
+    }
+
+    private void verifyMessage(InputStream body, BodyDigest bodyDigest, MessageComponents message,
+                               ReplayCache replayProtection) throws SignatureException {
+        long start = System.nanoTime();
+        String algorithm = null;
+        try {
+            List<SignatureInput> signatureInputs = parseSignatureInputs(message);
+            Map<String, String> signatures = parseSignatures(message);
+            long stageStart = stageCompleted(VerificationStage.PARSE, null, start);
+            List<LabelledKey> keys = resolveKeys(signatureInputs, message);
+            algorithm = keys.stream().filter(key -> key.verifier != null).findFirst().get().verifier.getAlgorithm();
+            stageStart = stageCompleted(VerificationStage.KEY, algorithm, stageStart);
+            if (bodyDigest != null) {
+                bodyDigest.verify();
+            } else {
+                verifyDigestHeader(body, message);
+            }
+            stageCompleted(VerificationStage.DIGEST, algorithm, stageStart);
+            verifySignatures(keys, signatures, message, replayProtection);
+        } catch (SignatureException ex) {
+            long duration = System.nanoTime() - start;
+            for (VerificationListener listener : listeners) {
+                listener.messageRejected(algorithm, ex, duration);
+            }
+            throw ex;
+        }
+
+        long duration = System.nanoTime() - start;
+        for (VerificationListener listener : listeners) {
+            listener.messageVerified(algorithm, duration);
+        }
+        logger.debug("Message signature verified");
+    }
+
+    public void addListener(VerificationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(VerificationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reports a successfully completed stage to the listeners and returns the current time, the start of the next
+     * stage.
+     */
+    private long stageCompleted(VerificationStage stage, String algorithm, long stageStart) {
+        long now = System.nanoTime();
+        for (VerificationListener listener : listeners) {
+            listener.stageCompleted(stage, algorithm, now - stageStart);
+        }
+        return now;
+    }
+
+    /**
+     * Verifies a batch of captured requests read as NDJSON records and writes one NDJSON result per record, in input
+     * order. Records are verified in parallel and the batch is never held in memory as a whole. See
+     * {@link BatchVerification} for the record and result formats.
+     *
+     * @return the number of lines read
+     */
+    public long verifyBatch(InputStream records, OutputStream results) throws IOException {
+        return new BatchVerification(this, cryptoExecutor, batchMaxInFlight).run(records, results);
+    }
+
+    /**
+     * Verifies the selected signatures according to the policy. The first label is verified on the calling thread and
+     * any further labels on the crypto pool, so a message with two signatures takes about as long as one with one.
+     * <p>
+     * The signature bases are encoded on the calling thread before anything is submitted: the message may be a view
+     * of a request that the container recycles as soon as this returns, while a check abandoned under the ANY policy
+     * may still be running. Signatures are recorded in the replay cache here too, once the message is accepted.
+     */
+    private void verifySignatures(List<LabelledKey> keys, Map<String, String> signatures, MessageComponents message,
+                                  ReplayCache replayProtection) throws SignatureException {
+        boolean copy = keys.size() > 1;
+        List<SignatureException> failures = new ArrayList<>(keys.size());
+        List<PreparedSignature> prepared = new ArrayList<>(keys.size());
+        for (LabelledKey key : keys) {
+            try {
+                if (key.failure != null) {
+                    throw key.failure;
+                }
+                prepared.add(prepareSignature(key.verifier, key.signatureInput, signatures, message, copy, replayProtection));
+            } catch (SignatureException ex) {
+                if (policy == VerificationPolicy.ALL) {
+                    throw ex;
+                }
+                failures.add(ex);
+            }
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(Math.max(prepared.size() - 1, 0));
+        for (int i = 1; i < prepared.size(); i++) {
+            PreparedSignature signature = prepared.get(i);
+            futures.add(cryptoExecutor.submitOrRun(() -> {
+                checkSignature(signature);
+                return null;
+            }));
+        }
+
+        List<PreparedSignature> verified = new ArrayList<>(prepared.size());
+        try {
+            for (int i = 0; i < prepared.size(); i++) {
+                try {
+                    if (i == 0) {
+                        checkSignature(prepared.get(0));
+                    } else {
+                        awaitSignature(futures.get(i - 1));
+                    }
+                    verified.add(prepared.get(i));
+                    if (policy == VerificationPolicy.ANY) {
+                        break;
+                    }
+                } catch (SignatureException ex) {
+                    if (policy == VerificationPolicy.ALL) {
+                        throw ex;
+                    }
+                    failures.add(ex);
+                }
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+
+        if (verified.isEmpty()) {
+            if (failures.size() == 1) {
+                throw failures.get(0);
+            }
+            StringBuilder failureMessage = new StringBuilder("No signature verified");
+            for (SignatureException ex : failures) {
+                failureMessage.append("; ").append(ex.getMessage());
+            }
+            throw new SignatureException(failureMessage.toString(), failures.get(0));
+        }
+        for (PreparedSignature signature : verified) {
+            replayProtection.record(signature.signature, signature.created);
+        }
+    }
+
+    private void awaitSignature(CompletableFuture<Void> future) throws SignatureException {
+        try {
+            future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SignatureException) {
+                throw (SignatureException) cause;
+            }
+            throw new SignatureException("Error verifying signature: " + cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SignatureException("Interrupted while verifying signatures", ex);
+        }
+    }
+
+    /**
+     * Resolves the key of each selected signature: the JWE in its keyid parameter if it has one, so that an
+     * intermediary can add a signature made with its own key, and otherwise the x-ebay-signature-key header. A keyid
+     * that is not a compact JWE, such as a plain RFC 9421 key name, is ignored as it was before. Under the ANY policy a
+     * signature whose key does not resolve is only rejected itself, unless no key resolves at all.
+     */
+    private List<LabelledKey> resolveKeys(List<SignatureInput> signatureInputs, MessageComponents message) throws SignatureException {
+        List<LabelledKey> keys = new ArrayList<>(signatureInputs.size());
+        PreparedVerifier headerVerifier = null;
+        SignatureException firstFailure = null;
+        boolean resolved = false;
+        for (SignatureInput signatureInput : signatureInputs) {
+            try {
+                PreparedVerifier verifier;
+                if (isCompactJWE(signatureInput.getKeyId())) {
+                    verifier = verifyJWT(signatureInput.getKeyId(), "keyid parameter of " + signatureInput.getLabel());
+                } else {
+                    if (headerVerifier == null) {
+                        headerVerifier = verifyJWT(message);
+                    }
+                    verifier = headerVerifier;
+                }
+                keys.add(new LabelledKey(signatureInput, verifier, null));
+                resolved = true;
+            } catch (SignatureException ex) {
+                if (policy == VerificationPolicy.ALL) {
+                    throw ex;
+                }
+                keys.add(new LabelledKey(signatureInput, null, ex));
+                if (firstFailure == null) {
+                    firstFailure = ex;
+                }
+            }
+        }
+        if (!resolved) {
+            throw firstFailure;
+        }
+        return keys;
+    }
+
+    /**
+     * Whether the value has the shape of a compact JWE: five base64url parts separated by dots, the second of which,
+     * the encrypted key, may be empty.
+     */
+    static boolean isCompactJWE(String value) {
+        if (value == null) {
+            return false;
+        }
+        int parts = 1;
+        int partStart = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? value.charAt(i) : '.';
+            if (c == '.') {
+                if (i == partStart && parts != 2) {
+                    return false;
+                }
+                if (i < value.length()) {
+                    parts++;
+                }
+                partStart = i + 1;
+            } else if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return parts == 5;
+    }
+
+    private PreparedVerifier verifyJWT(MessageComponents message) throws SignatureException {
+        String jwtString = message.getHeader("x-ebay-signature-key");
+        if (jwtString == null) {
+            throw new SignatureException(FailureReason.MISSING_HEADER, "x-ebay-signature-key header missing");
+        }
+        return verifyJWT(jwtString, "x-ebay-signature-key header");
+    }
+
+    private PreparedVerifier verifyJWT(String jwtString, String source) throws SignatureException {
+        PreparedVerifier cachedVerifier = publicKeyCache.get(jwtString);
+        if (cachedVerifier != null) {
+            return cachedVerifier;
+        }
+
+        // Read before decrypting: if the keys are reloaded meanwhile, the result is not cached
+        long generation = publicKeyCache.generation();
+        EncryptedJWT jwe = keypairService.decryptJWE(jwtString);
+
+        try {
+            JWTClaimsSet jwtClaimsSet = jwe.getJWTClaimsSet();
+            // TODO: additional validation of expiration, appID etc
+            byte[] keyBytes = Base64.decode((String) jwtClaimsSet.getClaim("pkey"));
+            String algorithm = (String) jwtClaimsSet.getClaim("cipher");
+
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
+            X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyBytes);
+            PreparedVerifier verifier = PreparedVerifier.forPublicKey(keyFactory.generatePublic(keySpec));
+            publicKeyCache.put(jwtString, jwtClaimsSet, verifier, generation);
+            return verifier;
+        } catch (NullPointerException ex) {
+            throw new SignatureException(FailureReason.BAD_JWE, "Error parsing JWE from " + source + ". Make sure to use one of the JWEs listed in the README file. JWEs from older versions of this project do not work: " + ex.getMessage(), ex);
+        } catch (ParseException | NoSuchAlgorithmException | InvalidKeySpecException ex) {
+            throw new SignatureException(FailureReason.BAD_JWE, "Error parsing JWE from " + source + ": " + ex.getMessage(), ex);
+        }
+
+    }
+
+    /**
+     * Drops the public keys resolved so far, so that JWEs are decrypted again with the current master key.
+     */
+    public void invalidateKeyCache() {
+        publicKeyCache.invalidateAll();
+    }
+
+    public CacheStats getKeyCacheStats() {
+        return publicKeyCache.stats();
+    }
+
+    public long getKeyCacheSize() {
+        return publicKeyCache.size();
+    }
+
+    private void verifyDigestHeader(InputStream body, MessageComponents message) throws SignatureException {
+        BodyDigest bodyDigest = new BodyDigest(message.getHeader("content-digest"));
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                bodyDigest.update(buffer, 0, read);
+            }
+        } catch (IOException ex) {
+            throw new SignatureException("Error reading message body: " + ex.getMessage(), ex);
+        }
+        bodyDigest.verify();
+    }
+
+    /**
+     * Checks the signature's time window and encodes its base, copied out of this thread's encoder if it is to be
+     * verified on another thread.
+     */
+    private PreparedSignature prepareSignature(PreparedVerifier verifier, SignatureInput signatureInput, Map<String, String> signatures,
+                                               MessageComponents message, boolean copy, ReplayCache replayProtection) throws SignatureException {
+        String label = signatureInput.getLabel();
+        String signature = signatures.get(label);
+        if (signature == null) {
+            throw new SignatureException(FailureReason.MALFORMED_HEADER, "Signature header invalid. No signature with label " + label);
+        }
+
+        replayProtection.checkWindow(signatureInput.getCreated(), signatureInput.getExpires());
+
+        long stageStart = System.nanoTime();
+        SignatureBaseEncoder base = SignatureBaseEncoder.forCurrentThread()
+                .encode(signatureInput.getPlan(), message, signatureInput.getValue());
+        logger.debug("Calculated base for {}:\n{}", label, base);
+
+        byte[] signatureBytes;
+        try {
+            signatureBytes = Base64.decode(signature);
+        } catch (Exception ex) {
+            throw new SignatureException(FailureReason.MALFORMED_HEADER, "Signature not a valid Base64 for label " + label + ": " + ex.getMessage(), ex);
+        }
+
+        stageCompleted(VerificationStage.BASE, verifier.getAlgorithm(), stageStart);
+        byte[] baseBytes = copy ? Arrays.copyOf(base.getBuffer(), base.getLength()) : base.getBuffer();
+        return new PreparedSignature(label, verifier, baseBytes, base.getLength(), signatureBytes, signatureInput.getCreated());
+    }
+
+    /**
+     * Verifies a prepared signature. It only reads the prepared copies, so it may run on any thread.
+     */
+    private void checkSignature(PreparedSignature signature) throws SignatureException {
+        long stageStart = System.nanoTime();
+        boolean verified = batchVerifier.verify(signature.verifier, signature.base, 0, signature.length, signature.signature);
+        stageCompleted(VerificationStage.SIGNATURE, signature.verifier.getAlgorithm(), stageStart);
+
+        if (!verified) {
+            throw new SignatureException(FailureReason.BAD_SIGNATURE, "Signature invalid for label " + signature.label);
+        }
+    }
+
+    private Map<String, String> parseSignatures(MessageComponents message) throws SignatureException {
+        String signature = message.getHeader("signature");
+        if (signature == null) {
+            throw new SignatureException(FailureReason.MISSING_HEADER, "Signature header missing");
+        }
+
+        return StructuredFieldParser.parseByteSequenceDictionary(signature, "Signature");
+    }
+
+    /**
+     * Returns the Signature-Input members to verify: those whose label is configured, or else the first one. Further
+     * members are typically added by intermediaries and are only verified when their labels are configured.
+     */
+    private List<SignatureInput> parseSignatureInputs(MessageComponents message) throws SignatureException {
+        String signatureInputHeader = message.getHeader("signature-input");
+        if (signatureInputHeader == null) {
+            throw new SignatureException(FailureReason.MISSING_HEADER, "Signature-Input header missing");
+        }
+
+        List<SignatureInput> signatureInputs = new ArrayList<>(1);
+        for (SignatureInput signatureInput : StructuredFieldParser.parseSignatureInput(signatureInputHeader)) {
+            if (!labels.isEmpty() && !labels.contains(signatureInput.getLabel())) {
+                continue;
+            }
+            if (signatureInput.getCreated() == null) {
+                throw new SignatureException(FailureReason.MALFORMED_HEADER, "Invalid signature-input. The created parameter is missing for " + signatureInput.getLabel());
+            }
+            signatureInputs.add(signatureInput);
+            if (labels.isEmpty()) {
+                break;
+            }
+        }
+
+        if (signatureInputs.isEmpty()) {
+            throw new SignatureException(FailureReason.MISSING_HEADER, "Signature-Input header has no signature with label " + String.join(", ", labels));
+        }
+        return signatureInputs;
+    }
+
+    /**
+     * The key resolved for one selected signature, or why it could not be resolved.
+     */
+    private static final class LabelledKey {
+        private final SignatureInput signatureInput;
+        private final PreparedVerifier verifier;
+        private final SignatureException failure;
+
+        private LabelledKey(SignatureInput signatureInput, PreparedVerifier verifier, SignatureException failure) {
+            this.signatureInput = signatureInput;
+            this.verifier = verifier;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Everything needed to verify one signature, independent of the message it came from.
+     */
+    private static final class PreparedSignature {
+        private final String label;
+        private final PreparedVerifier verifier;
+        private final byte[] base;
+        private final int length;
+        private final byte[] signature;
+        private final long created;
+
+        private PreparedSignature(String label, PreparedVerifier verifier, byte[] base, int length, byte[] signature, long created) {
+            this.label = label;
+            this.verifier = verifier;
+            this.base = base;
+            this.length = length;
+            this.signature = signature;
+            this.created = created;
+        }
+    }
+
+    public static final class Builder {
+        private final KeypairService keypairService;
+        private final CryptoExecutor cryptoExecutor;
+        private Ed25519BatchVerifier batchVerifier = NO_BATCHING;
+        private ReplayCache replayCache = NO_REPLAY_PROTECTION;
+        private long keyCacheMaximumSize = 10000;
+        private String[] labels = new String[0];
+        private VerificationPolicy policy = VerificationPolicy.ALL;
+        private int batchMaxInFlight = 256;
+
+        private Builder(KeypairService keypairService, CryptoExecutor cryptoExecutor) {
+            this.keypairService = keypairService;
+            this.cryptoExecutor = cryptoExecutor;
+        }
+
+        /**
+         * Verifies Ed25519 signatures of concurrent requests together. Off by default.
+         */
+        public Builder ed25519BatchVerifier(Ed25519BatchVerifier batchVerifier) {
+            this.batchVerifier = batchVerifier;
+            return this;
+        }
+
+        /**
+         * Rejects expired and replayed signatures of received requests. Off by default.
+         */
+        public Builder replayCache(ReplayCache replayCache) {
+            this.replayCache = replayCache;
+            return this;
+        }
+
+        /**
+         * The maximum number of public keys kept after decrypting their JWEs; 0 decrypts the JWE of every request.
+         */
+        public Builder keyCacheMaximumSize(long keyCacheMaximumSize) {
+            this.keyCacheMaximumSize = keyCacheMaximumSize;
+            return this;
+        }
+
+        /**
+         * The signature labels to verify; when empty, the default, only the first label in Signature-Input is verified.
+         */
+        public Builder labels(String... labels) {
+            this.labels = labels;
+            return this;
+        }
+
+        /**
+         * Whether all of the selected signatures, the default, or any one of them must verify.
+         */
+        public Builder policy(VerificationPolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * The maximum number of records of a batch being verified or waiting to be written, 256 by default.
+         */
+        public Builder batchMaxInFlight(int batchMaxInFlight) {
+            this.batchMaxInFlight = batchMaxInFlight;
+            return this;
+        }
+
+        public VerificationService build() {
+            return new VerificationService(this);
+        }
+    }
+}
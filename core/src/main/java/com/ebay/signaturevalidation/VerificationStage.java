@@ -0,0 +1,27 @@
+package com.ebay.signaturevalidation;
+
+/**
+ * The steps of {@link VerificationService#verifyMessage}, as reported to a {@link VerificationListener}.
+ */
+public enum VerificationStage {
+    /**
+     * Parsing the Signature-Input and Signature headers.
+     */
+    PARSE,
+    /**
+     * Resolving the public key from the x-ebay-signature-key header: decrypting the JWE, or a key cache hit.
+     */
+    KEY,
+    /**
+     * Hashing the body and checking it against Content-Digest.
+     */
+    DIGEST,
+    /**
+     * Building the signature base of one label.
+     */
+    BASE,
+    /**
+     * Checking the signature of one label.
+     */
+    SIGNATURE
+}
@@ -0,0 +1,468 @@
+package com.ebay.signaturevalidation;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class Ed25519BatchVerificationTests {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Test
+    void testValidSignaturesPass() {
+        for (int size : new int[]{1, 2, 3, 16, 64}) {
+            Assertions.assertTrue(Ed25519BatchVerification.verify(signAll(size, 3)), "batch of " + size);
+        }
+    }
+
+    @Test
+    void testSingleKeyBatchPasses() {
+        Assertions.assertTrue(Ed25519BatchVerification.verify(signAll(32, 1)));
+    }
+
+    @Test
+    void testInvalidSignatureFails() {
+        for (int corruptByte : new int[]{0, 17, 32, 50}) {
+            List<Ed25519BatchVerification.Item> items = new ArrayList<>();
+            List<Signed> signed = sign(16, 4);
+            byte[] signature = signed.get(7).signature.clone();
+            signature[corruptByte] ^= 0x01;
+            for (int i = 0; i < signed.size(); i++) {
+                Signed s = signed.get(i);
+                items.add(new Ed25519BatchVerification.Item(s.key, s.message, 0, s.message.length,
+                        i == 7 ? signature : s.signature));
+            }
+            Assertions.assertFalse(Ed25519BatchVerification.verify(items), "corrupt byte " + corruptByte);
+        }
+    }
+
+    @Test
+    void testWrongMessageOrKeyFails() {
+        List<Signed> signed = sign(8, 2);
+
+        List<Ed25519BatchVerification.Item> items = toItems(signed);
+        byte[] otherMessage = signed.get(3).message.clone();
+        otherMessage[0] ^= 0x01;
+        items.set(3, new Ed25519BatchVerification.Item(signed.get(3).key, otherMessage, 0, otherMessage.length,
+                signed.get(3).signature));
+        Assertions.assertFalse(Ed25519BatchVerification.verify(items));
+
+        items = toItems(signed);
+        Signed other = signed.get(0).key == signed.get(3).key ? signed.get(1) : signed.get(0);
+        items.set(3, new Ed25519BatchVerification.Item(other.key, signed.get(3).message, 0,
+                signed.get(3).message.length, signed.get(3).signature));
+        Assertions.assertFalse(Ed25519BatchVerification.verify(items));
+    }
+
+    @Test
+    void testNonCanonicalScalarFails() {
+        List<Signed> signed = sign(4, 1);
+        byte[] signature = signed.get(2).signature.clone();
+        // s + L is congruent to s but must be rejected, as BouncyCastle does
+        signature[63] |= (byte) 0xf0;
+        List<Ed25519BatchVerification.Item> items = toItems(signed);
+        items.set(2, new Ed25519BatchVerification.Item(signed.get(2).key, signed.get(2).message, 0,
+                signed.get(2).message.length, signature));
+        Assertions.assertFalse(Ed25519BatchVerification.verify(items));
+    }
+
+    @Test
+    void testBatchVerifierRejectsOnlyInvalidSignatures() throws Exception {
+        int threads = 8;
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519", new BouncyCastleProvider()).generateKeyPair();
+        PreparedVerifier verifier = PreparedVerifier.forPublicKey(keyPair.getPublic());
+        Ed25519BatchVerifier batchVerifier = new Ed25519BatchVerifier(true, 50_000, threads);
+
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                byte[] message = ("message " + t).getBytes();
+                Signature signer = Signature.getInstance("Ed25519", new BouncyCastleProvider());
+                signer.initSign(keyPair.getPrivate());
+                signer.update(message);
+                byte[] signature = signer.sign();
+                if (t % 3 == 1) {
+                    signature[5] ^= 0x01;
+                }
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return batchVerifier.verify(verifier, message, 0, message.length, signature);
+                }));
+            }
+            for (int t = 0; t < threads; t++) {
+                Assertions.assertEquals(t % 3 != 1, results.get(t).get(), "signature " + t);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testKeyEncodings() {
+        byte[] seed = new byte[Ed25519.SECRET_KEY_SIZE];
+        random.nextBytes(seed);
+        BigInteger[] a = Curve.multiply(Curve.BASE, secretScalar(seed));
+        Assertions.assertNotNull(Ed25519BatchVerification.prepareKey(Curve.encode(a)));
+        Assertions.assertNotNull(Ed25519BatchVerification.prepareKey(Curve.encode(Curve.add(a, Curve.ORDER_8))));
+
+        byte[] nonCanonical = Curve.encode(Curve.IDENTITY);
+        nonCanonical[0] = (byte) 0xee;
+        Arrays.fill(nonCanonical, 1, 31, (byte) 0xff);
+        nonCanonical[31] = 0x7f;
+        Assertions.assertNull(Ed25519BatchVerification.prepareKey(nonCanonical));
+    }
+
+    /**
+     * Runs signatures that the cofactored and the cofactorless equations judge differently, and malformed ones, through
+     * single verification, the batch and the batching verifier, and checks all three against a reference
+     * implementation of the cofactored equation. BouncyCastle's cofactorless result is only compared to show where the
+     * two rules differ.
+     */
+    @Test
+    void testSingleAndBatchVerificationAgree() throws Exception {
+        byte[] seed = new byte[Ed25519.SECRET_KEY_SIZE];
+        random.nextBytes(seed);
+        byte[] publicKey = new byte[Ed25519.PUBLIC_KEY_SIZE];
+        Ed25519.generatePublicKey(seed, 0, publicKey, 0);
+        BigInteger a = secretScalar(seed);
+        Assertions.assertArrayEquals(publicKey, Curve.encode(Curve.multiply(Curve.BASE, a)));
+
+        List<Case> cases = new ArrayList<>();
+        for (int k = 0; k < 8; k++) {
+            BigInteger[] torsion = Curve.multiply(Curve.ORDER_8, BigInteger.valueOf(k));
+            BigInteger r = new BigInteger(256, random).mod(Curve.L);
+            cases.add(sign("R = rB + " + k + "T", publicKey, a,
+                    Curve.encode(Curve.add(Curve.multiply(Curve.BASE, r), torsion)), r, false));
+            cases.add(sign("R = " + k + "T", publicKey, a, Curve.encode(torsion), BigInteger.ZERO, false));
+            // A key with a small-order component, signed with the secret scalar of its prime-order part
+            byte[] mixedKey = Curve.encode(Curve.add(Curve.multiply(Curve.BASE, a), torsion));
+            cases.add(sign("A = aB + " + k + "T", mixedKey, a, Curve.encode(Curve.multiply(Curve.BASE, r)), r, false));
+        }
+
+        byte[] nonCanonicalIdentity = new byte[32];
+        nonCanonicalIdentity[0] = (byte) 0xee;
+        Arrays.fill(nonCanonicalIdentity, 1, 31, (byte) 0xff);
+        nonCanonicalIdentity[31] = 0x7f;
+        cases.add(sign("non-canonical R", publicKey, a, nonCanonicalIdentity, BigInteger.ZERO, false));
+        byte[] negativeZero = Curve.encode(Curve.IDENTITY);
+        negativeZero[31] |= (byte) 0x80;
+        cases.add(sign("R with x = -0", publicKey, a, negativeZero, BigInteger.ZERO, false));
+
+        BigInteger r = new BigInteger(256, random).mod(Curve.L);
+        cases.add(sign("s + L", publicKey, a, Curve.encode(Curve.multiply(Curve.BASE, r)), r, true));
+        for (int i = 0; i < 8; i++) {
+            byte[] message = new byte[32];
+            random.nextBytes(message);
+            byte[] signature = new byte[Ed25519.SIGNATURE_SIZE];
+            random.nextBytes(signature);
+            if (i % 2 == 1) {
+                // A real point for R, a random reduced s
+                System.arraycopy(Curve.encode(Curve.multiply(Curve.BASE, r.add(BigInteger.valueOf(i)))), 0,
+                        signature, 0, 32);
+                System.arraycopy(littleEndian(new BigInteger(256, random).mod(Curve.L)), 0, signature, 32, 32);
+            }
+            cases.add(new Case("random " + i, publicKey, message, signature));
+        }
+        for (int i = 0; i < 4; i++) {
+            byte[] message = ("honest " + i).getBytes();
+            byte[] signature = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(seed, 0, message, 0, message.length, signature, 0);
+            cases.add(new Case("honest " + i, publicKey, message, signature));
+        }
+
+        Case honestCase = cases.get(cases.size() - 1);
+        Ed25519BatchVerification.Item honest = new Ed25519BatchVerification.Item(
+                Ed25519BatchVerification.prepareKey(publicKey), honestCase.message, 0, honestCase.message.length,
+                honestCase.signature);
+        boolean[] expected = new boolean[cases.size()];
+        for (int i = 0; i < cases.size(); i++) {
+            Case c = cases.get(i);
+            expected[i] = Curve.verifyCofactored(c.publicKey, c.message, c.signature);
+            Assertions.assertEquals(expected[i], c.verifier.verify(c.message, 0, c.message.length, c.signature), c.name);
+            Ed25519BatchVerification.Item item = new Ed25519BatchVerification.Item(
+                    Ed25519BatchVerification.prepareKey(c.publicKey), c.message, 0, c.message.length, c.signature);
+            Assertions.assertEquals(expected[i], Ed25519BatchVerification.verify(List.of(honest, item)), c.name);
+        }
+
+        // Where the rules differ: a small-order component in R is accepted, which BouncyCastle alone rejects
+        for (int k = 0; k < 8; k++) {
+            Case c = cases.get(names(cases).indexOf("R = rB + " + k + "T"));
+            Assertions.assertTrue(Curve.verifyCofactored(c.publicKey, c.message, c.signature), c.name);
+            Assertions.assertEquals(k == 0, Ed25519.verify(c.signature, 0, c.publicKey, 0, c.message, 0, c.message.length), c.name);
+            c = cases.get(names(cases).indexOf("A = aB + " + k + "T"));
+            Assertions.assertTrue(Curve.verifyCofactored(c.publicKey, c.message, c.signature), c.name);
+        }
+        for (String rejected : List.of("non-canonical R", "R with x = -0", "s + L")) {
+            Assertions.assertFalse(expected[names(cases).indexOf(rejected)], rejected);
+        }
+
+        // Everything at once, through the batching verifier
+        int threads = cases.size();
+        Ed25519BatchVerifier batchVerifier = new Ed25519BatchVerifier(true, 50_000, threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Case c : cases) {
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return batchVerifier.verify(c.verifier, c.message, 0, c.message.length, c.signature);
+                }));
+            }
+            for (int i = 0; i < threads; i++) {
+                Assertions.assertEquals(expected[i], results.get(i).get(), cases.get(i).name);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Signs with the nonce r and commitment R, which need not be rB. With R = rB + T for a small-order T, the
+     * signature passes the cofactored equation but not the cofactorless one.
+     */
+    private static Case sign(String name, byte[] publicKey, BigInteger a, byte[] encodedR, BigInteger r,
+            boolean addOrder) throws Exception {
+        byte[] message = name.getBytes();
+        MessageDigest sha512 = MessageDigest.getInstance("SHA-512");
+        sha512.update(encodedR);
+        sha512.update(publicKey);
+        BigInteger h = fromLittleEndian(sha512.digest(message)).mod(Curve.L);
+        BigInteger s = r.add(h.multiply(a)).mod(Curve.L);
+        if (addOrder) {
+            s = s.add(Curve.L);
+        }
+        return new Case(name, publicKey, message, concat(encodedR, littleEndian(s)));
+    }
+
+    private static List<String> names(List<Case> cases) {
+        List<String> names = new ArrayList<>();
+        for (Case c : cases) {
+            names.add(c.name);
+        }
+        return names;
+    }
+
+    private static BigInteger secretScalar(byte[] seed) {
+        byte[] h;
+        try {
+            h = MessageDigest.getInstance("SHA-512").digest(seed);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        h[0] &= (byte) 0xf8;
+        h[31] &= 0x7f;
+        h[31] |= 0x40;
+        return fromLittleEndian(Arrays.copyOf(h, 32));
+    }
+
+    private static BigInteger fromLittleEndian(byte[] bytes) {
+        byte[] bigEndian = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            bigEndian[i] = bytes[bytes.length - 1 - i];
+        }
+        return new BigInteger(1, bigEndian);
+    }
+
+    private static byte[] littleEndian(BigInteger value) {
+        byte[] bytes = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            bytes[i] = value.shiftRight(8 * i).byteValue();
+        }
+        return bytes;
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Affine edwards25519 arithmetic, slow and simple, to build points the batch code is not trusted to build.
+     */
+    private static final class Curve {
+        private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+        private static final BigInteger L = BigInteger.ONE.shiftLeft(252)
+                .add(new BigInteger("27742317777372353535851937790883648493"));
+        private static final BigInteger D = BigInteger.valueOf(-121665)
+                .multiply(BigInteger.valueOf(121666).modInverse(P)).mod(P);
+        private static final BigInteger SQRT_MINUS_ONE = BigInteger.TWO.modPow(P.subtract(BigInteger.ONE)
+                .shiftRight(2), P);
+
+        private static final BigInteger[] IDENTITY = {BigInteger.ZERO, BigInteger.ONE};
+        private static final BigInteger[] BASE = decode(hex("5866666666666666666666666666666666666666666666666666666666666666"));
+        private static final BigInteger[] ORDER_8 = decode(hex("26e8958fc2b227b045c3f489f2ef98f0d5dfac05d3c63339b13802886d53fc05"));
+
+        /**
+         * [8](sB - R - hA) = 0, with R and A canonical encodings of points and s below L.
+         */
+        private static boolean verifyCofactored(byte[] publicKey, byte[] message, byte[] signature) throws Exception {
+            BigInteger s = fromLittleEndian(Arrays.copyOfRange(signature, 32, 64));
+            BigInteger[] r = decode(Arrays.copyOf(signature, 32));
+            BigInteger[] a = decode(publicKey);
+            if (s.compareTo(L) >= 0 || r == null || a == null) {
+                return false;
+            }
+            MessageDigest sha512 = MessageDigest.getInstance("SHA-512");
+            sha512.update(signature, 0, 32);
+            sha512.update(publicKey);
+            BigInteger h = fromLittleEndian(sha512.digest(message)).mod(L);
+            BigInteger[] rPlusHA = add(r, multiply(a, h));
+            BigInteger[] difference = add(multiply(BASE, s), new BigInteger[]{P.subtract(rPlusHA[0]).mod(P), rPlusHA[1]});
+            return Arrays.equals(IDENTITY, multiply(difference, BigInteger.valueOf(8)));
+        }
+
+        static {
+            Assertions.assertArrayEquals(IDENTITY, multiply(ORDER_8, BigInteger.valueOf(8)));
+            Assertions.assertFalse(Arrays.equals(IDENTITY, multiply(ORDER_8, BigInteger.valueOf(4))));
+        }
+
+        private static BigInteger[] add(BigInteger[] p, BigInteger[] q) {
+            BigInteger dxxyy = D.multiply(p[0]).multiply(q[0]).multiply(p[1]).multiply(q[1]).mod(P);
+            BigInteger x = p[0].multiply(q[1]).add(p[1].multiply(q[0]))
+                    .multiply(BigInteger.ONE.add(dxxyy).modInverse(P)).mod(P);
+            BigInteger y = p[1].multiply(q[1]).add(p[0].multiply(q[0]))
+                    .multiply(BigInteger.ONE.subtract(dxxyy).mod(P).modInverse(P)).mod(P);
+            return new BigInteger[]{x, y};
+        }
+
+        private static BigInteger[] multiply(BigInteger[] p, BigInteger k) {
+            BigInteger[] result = IDENTITY;
+            for (int i = k.bitLength() - 1; i >= 0; i--) {
+                result = add(result, result);
+                if (k.testBit(i)) {
+                    result = add(result, p);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Decodes a point, or returns null if the encoding is not canonical or not on the curve.
+         */
+        private static BigInteger[] decode(byte[] encoded) {
+            byte[] bytes = encoded.clone();
+            boolean sign = (bytes[31] & 0x80) != 0;
+            bytes[31] &= 0x7f;
+            BigInteger y = fromLittleEndian(bytes);
+            if (y.compareTo(P) >= 0) {
+                return null;
+            }
+            BigInteger yy = y.multiply(y).mod(P);
+            BigInteger u = yy.subtract(BigInteger.ONE).mod(P);
+            BigInteger v = D.multiply(yy).add(BigInteger.ONE).mod(P);
+            BigInteger xx = u.multiply(v.modInverse(P)).mod(P);
+            BigInteger x = xx.modPow(P.add(BigInteger.valueOf(3)).shiftRight(3), P);
+            if (!x.multiply(x).mod(P).equals(xx)) {
+                x = x.multiply(SQRT_MINUS_ONE).mod(P);
+            }
+            if (!x.multiply(x).mod(P).equals(xx) || x.signum() == 0 && sign) {
+                return null;
+            }
+            if (x.testBit(0) != sign) {
+                x = P.subtract(x).mod(P);
+            }
+            return new BigInteger[]{x, y};
+        }
+
+        private static byte[] encode(BigInteger[] p) {
+            byte[] bytes = littleEndian(p[1]);
+            if (p[0].testBit(0)) {
+                bytes[31] |= (byte) 0x80;
+            }
+            return bytes;
+        }
+    }
+
+    private List<Ed25519BatchVerification.Item> signAll(int count, int keys) {
+        return toItems(sign(count, keys));
+    }
+
+    private static List<Ed25519BatchVerification.Item> toItems(List<Signed> signed) {
+        List<Ed25519BatchVerification.Item> items = new ArrayList<>();
+        for (Signed s : signed) {
+            items.add(new Ed25519BatchVerification.Item(s.key, s.message, 0, s.message.length, s.signature));
+        }
+        return items;
+    }
+
+    private List<Signed> sign(int count, int keys) {
+        byte[][] privateKeys = new byte[keys][Ed25519.SECRET_KEY_SIZE];
+        Ed25519BatchVerification.PreparedKey[] preparedKeys = new Ed25519BatchVerification.PreparedKey[keys];
+        for (int k = 0; k < keys; k++) {
+            random.nextBytes(privateKeys[k]);
+            byte[] publicKey = new byte[Ed25519.PUBLIC_KEY_SIZE];
+            Ed25519.generatePublicKey(privateKeys[k], 0, publicKey, 0);
+            preparedKeys[k] = Ed25519BatchVerification.prepareKey(publicKey);
+            Assertions.assertNotNull(preparedKeys[k]);
+        }
+
+        List<Signed> signed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] message = new byte[random.nextInt(300)];
+            random.nextBytes(message);
+            byte[] signature = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(privateKeys[i % keys], 0, message, 0, message.length, signature, 0);
+            signed.add(new Signed(preparedKeys[i % keys], message, signature));
+        }
+        return signed;
+    }
+
+    private static final class Case {
+        private final String name;
+        private final byte[] publicKey;
+        private final byte[] message;
+        private final byte[] signature;
+        private final PreparedVerifier verifier;
+
+        private Case(String name, byte[] publicKey, byte[] message, byte[] signature) throws Exception {
+            this.name = name;
+            this.publicKey = publicKey;
+            this.message = message;
+            this.signature = signature;
+            this.verifier = PreparedVerifier.forPublicKey(KeyFactory.getInstance("Ed25519", new BouncyCastleProvider())
+                    .generatePublic(new X509EncodedKeySpec(concat(hex("302a300506032b6570032100"), publicKey))));
+        }
+    }
+
+    private static final class Signed {
+        private final Ed25519BatchVerification.PreparedKey key;
+        private final byte[] message;
+        private final byte[] signature;
+
+        private Signed(Ed25519BatchVerification.PreparedKey key, byte[] message, byte[] signature) {
+            this.key = key;
+            this.message = message;
+            this.signature = signature;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.ebay.signaturevalidation;
+
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+class KeyReloaderTests {
+
+    private static final String BODY = "{\"hello\": \"world\"}";
+
+    private final URI uri = URI.create("http://localhost:8080/verifysignature");
+
+    @TempDir
+    Path keysFolder;
+
+    private CryptoExecutor cryptoExecutor;
+    private KeypairService keypairService;
+    private SignatureService signatureService;
+    private VerificationService verificationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        copyKeys(Path.of("keys"), keysFolder);
+
+        cryptoExecutor = new CryptoExecutor(1, 16);
+        keypairService = new KeypairService("Ed25519", keysFolder.toString());
+        signatureService = new SignatureService(keypairService);
+        verificationService = VerificationService.builder(keypairService, cryptoExecutor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testReloadSwapsSigningKey() throws Exception {
+        Map<String, String> before = sign();
+        writeKeyPair(newKeyPair(), true);
+
+        Assertions.assertTrue(reloader(false).reload());
+
+        Map<String, String> after = sign();
+        Assertions.assertNotEquals(before.get("x-ebay-signature-key"), after.get("x-ebay-signature-key"));
+        Assertions.assertNotEquals(before.get("signature"), after.get("signature"));
+        verificationService.verifyMessage(BODY, after, uri, "POST");
+        // Signed with the old key pair under the same master key, so still valid
+        verificationService.verifyMessage(BODY, before, uri, "POST");
+    }
+
+    @Test
+    void testNewMasterKeyInvalidatesCachedKeys() throws Exception {
+        Map<String, String> before = sign();
+        verificationService.verifyMessage(BODY, before, uri, "POST");
+        Assertions.assertEquals(1, verificationService.getKeyCacheSize());
+
+        Files.writeString(keysFolder.resolve("masterkey.key"), newMasterKey());
+        Assertions.assertTrue(reloader(false).reload());
+
+        SignatureException ex = Assertions.assertThrows(SignatureException.class,
+                () -> verificationService.verifyMessage(BODY, before, uri, "POST"));
+        Assertions.assertEquals(FailureReason.BAD_JWE, ex.getReason());
+        verificationService.verifyMessage(BODY, sign(), uri, "POST");
+    }
+
+    @Test
+    void testRotatedMasterKeyStillDecrypts() throws Exception {
+        Map<String, String> before = sign();
+        Files.move(keysFolder.resolve("masterkey.key"), keysFolder.resolve("masterkey-previous.key"));
+        Files.writeString(keysFolder.resolve("masterkey.key"), newMasterKey());
+        Assertions.assertTrue(reloader(false).reload());
+        Assertions.assertEquals(2, keypairService.getKeyring().getKeyIds().size());
+
+        Map<String, String> after = sign();
+        Assertions.assertNotEquals(kid(before), kid(after));
+        Assertions.assertEquals(keypairService.getKeyring().getPrimaryKeyId(), kid(after));
+        // Both JWEs are decrypted, not taken from the public key cache
+        Assertions.assertNotNull(keypairService.decryptJWE(before.get("x-ebay-signature-key")).getJWTClaimsSet());
+        Assertions.assertNotNull(keypairService.decryptJWE(after.get("x-ebay-signature-key")).getJWTClaimsSet());
+
+        Files.delete(keysFolder.resolve("masterkey-previous.key"));
+        Assertions.assertTrue(reloader(false).reload());
+        SignatureException ex = Assertions.assertThrows(SignatureException.class,
+                () -> keypairService.decryptJWE(before.get("x-ebay-signature-key")));
+        Assertions.assertEquals(FailureReason.BAD_JWE, ex.getReason());
+    }
+
+    @Test
+    void testKeepsCurrentKeysWhenKeyPairDoesNotMatch() throws Exception {
+        Map<String, String> before = sign();
+        // Only the private key has been replaced so far
+        writeKeyPair(newKeyPair(), false);
+
+        Assertions.assertFalse(reloader(false).reload());
+
+        Map<String, String> after = sign();
+        Assertions.assertEquals(before.get("x-ebay-signature-key"), after.get("x-ebay-signature-key"));
+        verificationService.verifyMessage(BODY, after, uri, "POST");
+    }
+
+    @Test
+    void testWatcherReloadsChangedKeys() throws Exception {
+        String jwe = sign().get("x-ebay-signature-key");
+        KeyReloader reloader = reloader(true);
+        reloader.start();
+        try {
+            writeKeyPair(newKeyPair(), true);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (jwe.equals(sign().get("x-ebay-signature-key"))) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, "keys not reloaded");
+                Thread.sleep(20);
+            }
+            verificationService.verifyMessage(BODY, sign(), uri, "POST");
+        } finally {
+            reloader.stop();
+        }
+    }
+
+    @Test
+    void testWatcherFollowsReplacedFolder() throws Exception {
+        String jwe = sign().get("x-ebay-signature-key");
+        KeyReloader reloader = reloader(true);
+        reloader.start();
+        try {
+            Path folder = keysFolder.resolve("ed25519");
+            Files.move(folder, keysFolder.resolve("ed25519-old"));
+            Files.createDirectory(folder);
+            // Let the watcher see the new folder; reloading from it fails while it is empty
+            Thread.sleep(500);
+            Assertions.assertEquals(jwe, sign().get("x-ebay-signature-key"));
+
+            // Only the new folder changes now
+            writeKeyPair(newKeyPair(), true);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (jwe.equals(sign().get("x-ebay-signature-key"))) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, "keys in the new folder not reloaded");
+                Thread.sleep(20);
+            }
+        } finally {
+            reloader.stop();
+        }
+    }
+
+    @Test
+    void testKeyDecryptedBeforeInvalidationIsNotCached() throws Exception {
+        PublicKeyCache cache = new PublicKeyCache(16);
+        PreparedVerifier verifier = PreparedVerifier.forPublicKey(newKeyPair().getPublic());
+        JWTClaimsSet claims = new JWTClaimsSet.Builder().build();
+
+        // Decrypted with the old keyring, put after the reload dropped the cache
+        long generation = cache.generation();
+        cache.invalidateAll();
+        cache.put("jwe", claims, verifier, generation);
+        Assertions.assertNull(cache.get("jwe"));
+
+        cache.put("jwe", claims, verifier, cache.generation());
+        Assertions.assertSame(verifier, cache.get("jwe"));
+        cache.invalidateAll();
+        Assertions.assertNull(cache.get("jwe"));
+    }
+
+    private KeyReloader reloader(boolean enabled) {
+        return new KeyReloader(keypairService, signatureService, verificationService, enabled, 100);
+    }
+
+    private Map<String, String> sign() throws SignatureException {
+        Map<String, List<String>> signed = new HashMap<>();
+        signatureService.signMessage(SignableMessage.of("POST", uri, signed), BODY.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> headers = new HashMap<>();
+        signed.forEach((name, values) -> headers.put(name, values.get(0)));
+        return headers;
+    }
+
+    private static String kid(Map<String, String> headers) throws Exception {
+        return EncryptedJWT.parse(headers.get("x-ebay-signature-key")).getHeader().getKeyID();
+    }
+
+    private static String newMasterKey() {
+        byte[] masterKey = new byte[32];
+        new SecureRandom().nextBytes(masterKey);
+        return Base64.getEncoder().encodeToString(masterKey);
+    }
+
+    private static KeyPair newKeyPair() throws Exception {
+        return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    }
+
+    private void writeKeyPair(KeyPair keyPair, boolean withPublicKey) throws Exception {
+        Path folder = keysFolder.resolve("ed25519");
+        Files.writeString(folder.resolve("privatekey.pem"), pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        if (withPublicKey) {
+            Files.writeString(folder.resolve("publickey.pem"), pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        }
+    }
+
+    private static void copyKeys(Path source, Path target) throws Exception {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy);
+                }
+            }
+        }
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(encoded)
+                + "\n-----END " + type + "-----\n";
+    }
+}
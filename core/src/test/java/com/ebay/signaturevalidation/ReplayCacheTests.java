@@ -0,0 +1,140 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ReplayCacheTests {
+
+    private static final long NOW = 1_700_000_000L;
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private final ReplayCache cache = new ReplayCache(true, 300, 30, clock);
+
+    @Test
+    void testRejectsSignaturesOutsideWindow() throws Exception {
+        cache.checkWindow(NOW - 300, null);
+        cache.checkWindow(NOW + 30, NOW + 60);
+
+        assertRejected(FailureReason.EXPIRED, () -> cache.checkWindow(NOW - 301, null));
+        assertRejected(FailureReason.EXPIRED, () -> cache.checkWindow(NOW + 31, null));
+        assertRejected(FailureReason.EXPIRED, () -> cache.checkWindow(NOW - 10, NOW - 1));
+        assertRejected(FailureReason.EXPIRED, () -> cache.checkWindow(null, null));
+    }
+
+    @Test
+    void testRejectsReplayedSignatures() throws Exception {
+        cache.record(signature(1), NOW);
+        cache.record(signature(2), NOW);
+
+        assertRejected(FailureReason.REPLAYED, () -> cache.record(signature(1), NOW));
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testEvictsBucketsAsTheyAgeOut() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            cache.record(signature(i), NOW);
+        }
+
+        // One signature per second for longer than the window: the ring turns over and only about a window's worth is
+        // kept
+        for (long created = NOW + 400; created < NOW + 800; created++) {
+            clock.seconds = created;
+            cache.record(signature((int) created), created);
+        }
+        Assertions.assertTrue(cache.size() < 400, "size " + cache.size());
+        Assertions.assertTrue(cache.size() > 300, "size " + cache.size());
+    }
+
+    @Test
+    void testDisabledCacheAcceptsEverything() throws Exception {
+        ReplayCache disabled = new ReplayCache(false, 300, 30, clock);
+
+        disabled.checkWindow(1658440308L, null);
+        disabled.record(signature(1), NOW);
+        disabled.record(signature(1), NOW);
+        Assertions.assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void testConcurrentRecordsAcceptOneOfEach() throws Exception {
+        int threads = 8;
+        int signatures = 2000;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int accepted = 0;
+                    for (int i = 0; i < signatures; i++) {
+                        try {
+                            cache.record(signature(i), NOW - i % 300);
+                            accepted++;
+                        } catch (SignatureException ex) {
+                            Assertions.assertEquals(FailureReason.REPLAYED, ex.getReason());
+                        }
+                    }
+                    return accepted;
+                }));
+            }
+
+            int accepted = 0;
+            for (Future<Integer> result : results) {
+                accepted += result.get();
+            }
+            Assertions.assertEquals(signatures, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] signature(int n) {
+        byte[] signature = new byte[64];
+        for (int i = 0; i < 4; i++) {
+            signature[12 + i] = (byte) (n >>> (24 - 8 * i));
+        }
+        return signature;
+    }
+
+    private static void assertRejected(FailureReason reason, Executable executable) {
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, executable);
+        Assertions.assertEquals(reason, ex.getReason());
+    }
+
+    private static final class MutableClock extends Clock {
+        private long seconds;
+
+        private MutableClock(long seconds) {
+            this.seconds = seconds;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochSecond(seconds);
+        }
+    }
+}
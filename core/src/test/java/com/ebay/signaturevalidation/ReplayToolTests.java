@@ -0,0 +1,122 @@
+package com.ebay.signaturevalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ReplayToolTests {
+
+    private static final String RECORD = "{\"method\":\"POST\",\"uri\":\"http://localhost:8080/verifysignature\",\"body\":\"%s\",\"headers\":{"
+            + "\"Content-Digest\":\"sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:\","
+            + "\"Signature-Input\":\"sig1=(\\\"content-digest\\\" \\\"x-ebay-signature-key\\\" \\\"@method\\\" \\\"@path\\\" \\\"@authority\\\");created=1658440308\","
+            + "\"Signature\":\"sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:\","
+            + "\"x-ebay-signature-key\":\"eyJ6aXAiOiJERUYiLCJlbmMiOiJBMjU2R0NNIiwidGFnIjoiSXh2dVRMb0FLS0hlS0Zoa3BxQ05CUSIsImFsZyI6IkEyNTZHQ01LVyIsIml2IjoiaFd3YjNoczk2QzEyOTNucCJ9.2o02pR9SoTF4g_5qRXZm6tF4H52TarilIAKxoVUqjd8.3qaF0KJN-rFHHm_P.AMUAe9PPduew09mANIZ-O_68CCuv6EIx096rm9WyLZnYz5N1WFDQ3jP0RBkbaOtQZHImMSPXIHVaB96RWshLuJsUgCKmTAwkPVCZv3zhLxZVxMXtPUuJ-ppVmPIv0NzznWCOU5Kvb9Xux7ZtnlvLXgwOFEix-BaWNomUAazbsrUCbrp514GIea3butbyxXLNi6R9TJUNh8V2uan-optT1MMyS7eMQnVGL5rYBULk.9K5ucUqAu0DqkkhgubsHHw\"}}";
+
+    @TempDir
+    Path tempDir;
+
+    private CryptoExecutor cryptoExecutor;
+    private VerificationService verificationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        cryptoExecutor = new CryptoExecutor(2, 16);
+        verificationService = VerificationService.builder(new KeypairService(), cryptoExecutor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testReplayAtMaximumRate() throws Exception {
+        List<CapturedRequest> corpus = ReplayTool.loadCorpus(writeCapture());
+
+        String report = replay(new ReplayTool(verificationService, corpus, 2, 0, 50, 1));
+
+        Assertions.assertTrue(report.contains("Replayed 100 requests on 2 threads"), report);
+        Assertions.assertTrue(report.contains("Verified: 50, rejected: 50"), report);
+        Assertions.assertTrue(report.contains("Content-Digest value is invalid"), report);
+        Assertions.assertTrue(report.lines().anyMatch(line -> line.matches("signature\\s+50 .*")), report);
+    }
+
+    @Test
+    void testReplayAtFixedRate() throws Exception {
+        List<CapturedRequest> corpus = ReplayTool.loadCorpus(writeCapture());
+
+        long start = System.nanoTime();
+        String report = replay(new ReplayTool(verificationService, corpus, 2, 200, 10, 0));
+
+        // 20 requests at 200 per second take at least 95 ms
+        Assertions.assertTrue(System.nanoTime() - start >= 95_000_000L, report);
+        Assertions.assertTrue(report.contains("Verified: 10, rejected: 10"), report);
+    }
+
+    @Test
+    void testReplayAsReceivedRequests() throws Exception {
+        // Signed now, so within the window; the test vector was signed long before it
+        SignatureService signatureService = new SignatureService(new KeypairService("Ed25519"));
+        Map<String, List<String>> signed = new HashMap<>();
+        URI uri = URI.create("http://localhost:8080/verifysignature");
+        signatureService.signMessage(SignableMessage.of("POST", uri, signed), "{\"hello\": \"world\"}".getBytes(StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>();
+        signed.forEach((name, values) -> headers.put(name, values.get(0)));
+        Map<String, Object> record = new HashMap<>();
+        record.put("method", "POST");
+        record.put("uri", uri.toString());
+        record.put("headers", headers);
+        record.put("body", "{\"hello\": \"world\"}");
+        Path capture = tempDir.resolve("fresh.ndjson");
+        Files.writeString(capture, new ObjectMapper().writeValueAsString(record) + "\n"
+                + String.format(RECORD, "{\\\"hello\\\": \\\"world\\\"}") + "\n");
+        List<CapturedRequest> corpus = ReplayTool.loadCorpus(capture);
+
+        VerificationService received = VerificationService.builder(new KeypairService(), cryptoExecutor)
+                .replayCache(new ReplayCache(true, 300, 30))
+                .build();
+        String report = replay(new ReplayTool(received, corpus, 1, 0, 2, 0, true));
+
+        Assertions.assertTrue(report.contains("Verified: 1, rejected: 3"), report);
+        Assertions.assertTrue(report.contains("2  Signature created more than 300 seconds ago"), report);
+        Assertions.assertTrue(report.contains("1  Signature has already been used"), report);
+    }
+
+    @Test
+    void testRejectsInvalidCaptureFile() throws Exception {
+        Path capture = tempDir.resolve("invalid.ndjson");
+        Files.writeString(capture, "{\"method\":\"GET\"}\n");
+
+        SignatureException ex = Assertions.assertThrows(SignatureException.class, () -> ReplayTool.loadCorpus(capture));
+        Assertions.assertTrue(ex.getMessage().contains("line 1"), ex.getMessage());
+    }
+
+    private Path writeCapture() throws Exception {
+        Path capture = tempDir.resolve("capture.ndjson");
+        Files.writeString(capture, String.format(RECORD, "{\\\"hello\\\": \\\"world\\\"}") + "\n"
+                + String.format(RECORD, "tampered") + "\n");
+        return capture;
+    }
+
+    private static String replay(ReplayTool tool) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tool.run(new PrintStream(out, true, StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
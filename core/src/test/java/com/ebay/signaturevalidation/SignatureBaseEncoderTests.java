@@ -0,0 +1,150 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class SignatureBaseEncoderTests {
+
+    private final URI uri = URI.create("https://api.ebay.com/verifysignature?x=1");
+
+    @Test
+    void testEncodesSignatureBase() throws Exception {
+        List<SignatureInput> signatureInputs = StructuredFieldParser.parseSignatureInput(
+                "sig1=(\"content-digest\" \"@method\" \"@path\" \"@authority\" \"@query\" \"@SCHEME\" \"@target-uri\");created=1658440308");
+        MessageComponents message = MessageComponents.of("POST", uri, Map.of("content-digest", "sha-256=:abc=:"));
+
+        String expected = "\"content-digest\": sha-256=:abc=:\n"
+                + "\"@method\": POST\n"
+                + "\"@path\": /verifysignature\n"
+                + "\"@authority\": api.ebay.com\n"
+                + "\"@query\": x=1\n"
+                + "\"@scheme\": https\n"
+                + "\"@target-uri\": https://api.ebay.com/verifysignature?x=1\n"
+                + "\"@signature-params\": " + signatureInputs.get(0).getValue();
+
+        SignatureBaseEncoder encoder = SignatureBaseEncoder.forCurrentThread()
+                .encode(signatureInputs.get(0).getComponents(), message, signatureInputs.get(0).getValue());
+        Assertions.assertEquals(expected, encoder.toString());
+    }
+
+    @Test
+    void testEncodesLikeGetBytes() throws Exception {
+        // Two-, three- and four-byte sequences and an unpaired surrogate
+        String value = "café € 😀 \ud800 end";
+        List<SignatureInput.Component> components = List.of(new SignatureInput.Component("x-value", ""));
+        MessageComponents message = MessageComponents.of("GET", uri, Map.of("x-value", value));
+
+        SignatureBaseEncoder encoder = SignatureBaseEncoder.forCurrentThread().encode(components, message, "(\"x-value\")");
+        byte[] expected = ("\"x-value\": " + value + "\n\"@signature-params\": (\"x-value\")").getBytes(StandardCharsets.UTF_8);
+        Assertions.assertArrayEquals(expected, Arrays.copyOf(encoder.getBuffer(), encoder.getLength()));
+    }
+
+    @Test
+    void testEncodesRepeatedFieldsLikeReceivedMessage() throws Exception {
+        List<SignatureInput.Component> components = List.of(new SignatureInput.Component("x-value", ""));
+        Map<String, List<String>> headers = new HashMap<>();
+        SignableMessage sent = SignableMessage.of("GET", uri, headers);
+        sent.addHeader("X-Value", "a");
+        sent.addHeader("X-Value", "b");
+
+        String expected = SignatureBaseEncoder.forCurrentThread()
+                .encode(components, MessageComponents.of("GET", uri, Map.of("x-value", "a, b")), "()").toString();
+        Assertions.assertEquals(expected, SignatureBaseEncoder.forCurrentThread().encode(components, sent, "()").toString());
+        Assertions.assertEquals("\"x-value\": a, b\n\"@signature-params\": ()", expected);
+    }
+
+    @Test
+    void testReusesBufferAcrossBases() throws Exception {
+        List<SignatureInput.Component> components = List.of(new SignatureInput.Component("x-value", ""));
+        String large = "a".repeat(10_000);
+
+        SignatureBaseEncoder encoder = SignatureBaseEncoder.forCurrentThread()
+                .encode(components, MessageComponents.of("GET", uri, Map.of("x-value", large)), "()");
+        byte[] buffer = encoder.getBuffer();
+        encoder = SignatureBaseEncoder.forCurrentThread()
+                .encode(components, MessageComponents.of("GET", uri, Map.of("x-value", "small")), "()");
+
+        Assertions.assertSame(buffer, encoder.getBuffer());
+        Assertions.assertEquals("\"x-value\": small\n\"@signature-params\": ()", encoder.toString());
+    }
+
+    @Test
+    void testSharesPlansOfEqualComponentLists() throws Exception {
+        SignatureInput first = StructuredFieldParser.parseSignatureInput("sig1=(\"@method\" \"@PATH\" \"x-value\");created=1658440308").get(0);
+        SignatureInput second = StructuredFieldParser.parseSignatureInput("sig2=(\"@method\" \"@PATH\" \"x-value\");created=1658440309").get(0);
+        MessageComponents message = MessageComponents.of("GET", uri, Map.of("x-value", "1"));
+
+        Assertions.assertSame(first.getPlan(), second.getPlan());
+        String expected = SignatureBaseEncoder.forCurrentThread().encode(second.getComponents(), message, second.getValue()).toString();
+        Assertions.assertEquals(expected, SignatureBaseEncoder.forCurrentThread().encode(second.getPlan(), message, second.getValue()).toString());
+        Assertions.assertEquals("\"@method\": GET\n\"@path\": /verifysignature\n\"x-value\": 1\n\"@signature-params\": " + second.getValue(), expected);
+    }
+
+    @Test
+    void testRejectsUnknownComponents() {
+        MessageComponents message = MessageComponents.of("GET", uri, Map.of());
+        Assertions.assertThrows(SignatureException.class, () -> SignatureBaseEncoder.forCurrentThread()
+                .encode(List.of(new SignatureInput.Component("x-missing", "")), message, "()"));
+        Assertions.assertThrows(SignatureException.class, () -> SignatureBaseEncoder.forCurrentThread()
+                .encode(List.of(new SignatureInput.Component("@unknown", "")), message, "()"));
+        Assertions.assertThrows(SignatureException.class, () -> SignatureBaseEncoder.forCurrentThread()
+                .encode(List.of(new SignatureInput.Component("@method", ";req")), message, "()"));
+    }
+
+    @Test
+    void testReadsOnlyCoveredComponents() throws Exception {
+        SignatureInput signatureInput = StructuredFieldParser.parseSignatureInput(
+                "sig1=(\"X-Value\" \"@method\" \"@path\" \"@authority\" \"@scheme\");created=1658440308").get(0);
+        List<String> headersRead = new ArrayList<>();
+        MessageComponents message = new MessageComponents() {
+            @Override
+            public String getMethod() {
+                return "GET";
+            }
+
+            @Override
+            public URI getUri() {
+                throw new AssertionError("The target URI is not covered");
+            }
+
+            @Override
+            public String getHeader(String name) {
+                headersRead.add(name);
+                return "1, 2";
+            }
+
+            @Override
+            public String getAuthority() {
+                return "api.ebay.com";
+            }
+
+            @Override
+            public String getPath() {
+                return "/verifysignature";
+            }
+
+            @Override
+            public String getScheme() {
+                return "https";
+            }
+        };
+
+        String expected = "\"x-value\": 1, 2\n"
+                + "\"@method\": GET\n"
+                + "\"@path\": /verifysignature\n"
+                + "\"@authority\": api.ebay.com\n"
+                + "\"@scheme\": https\n"
+                + "\"@signature-params\": " + signatureInput.getValue();
+        Assertions.assertEquals(expected, SignatureBaseEncoder.forCurrentThread()
+                .encode(signatureInput.getPlan(), message, signatureInput.getValue()).toString());
+        Assertions.assertEquals(List.of("x-value"), headersRead);
+    }
+}
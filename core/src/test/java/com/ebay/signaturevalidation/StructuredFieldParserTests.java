@@ -0,0 +1,314 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class StructuredFieldParserTests {
+
+    private static final String KEY_FIRST_CHARS = "abcdefghijklmnopqrstuvwxyz*";
+    private static final String KEY_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789_-.*";
+    private static final String BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    private static final String FUZZ_CHARS = "()\";:=,*?-.\\ \t\u0000\u001f\u007fé€az09AZ@/+";
+
+    @Test
+    void testParseReadmeSignatureInput() throws Exception {
+        List<SignatureInput> signatureInputs = StructuredFieldParser.parseSignatureInput(
+                "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308");
+
+        Assertions.assertEquals(1, signatureInputs.size());
+        SignatureInput signatureInput = signatureInputs.get(0);
+        Assertions.assertEquals("sig1", signatureInput.getLabel());
+        Assertions.assertEquals(List.of("content-digest", "x-ebay-signature-key", "@method", "@path", "@authority"), names(signatureInput));
+        Assertions.assertEquals(1658440308L, signatureInput.getCreated());
+        Assertions.assertNull(signatureInput.getExpires());
+        Assertions.assertEquals("(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308", signatureInput.getValue());
+    }
+
+    @Test
+    void testParseRfc9421Examples() throws Exception {
+        List<SignatureInput> signatureInputs = StructuredFieldParser.parseSignatureInput(
+                "sig-b21=();created=1618884473;keyid=\"test-key-rsa-pss\";nonce=\"b3k2pp5k7z-50gnwp.yemd\", "
+                        + "sig-b22=(\"@authority\" \"content-digest\" \"@query-param\";name=\"Pet\");created=1618884473;keyid=\"test-key-rsa-pss\";tag=\"header-example\"");
+
+        Assertions.assertEquals(2, signatureInputs.size());
+        SignatureInput first = signatureInputs.get(0);
+        Assertions.assertEquals("sig-b21", first.getLabel());
+        Assertions.assertTrue(first.getComponents().isEmpty());
+        Assertions.assertEquals("test-key-rsa-pss", first.getKeyId());
+        Assertions.assertEquals("b3k2pp5k7z-50gnwp.yemd", first.getNonce());
+
+        SignatureInput second = signatureInputs.get(1);
+        Assertions.assertEquals("sig-b22", second.getLabel());
+        Assertions.assertEquals(List.of("@authority", "content-digest", "@query-param"), names(second));
+        Assertions.assertEquals(";name=\"Pet\"", second.getComponents().get(2).getParameters());
+        Assertions.assertEquals("header-example", second.getTag());
+    }
+
+    @Test
+    void testParseByteSequenceDictionary() throws Exception {
+        Map<String, String> members = StructuredFieldParser.parseByteSequenceDictionary(
+                "sha-512=:WZDPaVn/7XgHaAy8pmojAkGWoRx2UFChF41A2svX+TaPm+AbwAgBWnrIiYllu7BNNyealdVLvRwEmTHWXvJwew==:,\tsha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:;x=?1", "Content-Digest");
+
+        Assertions.assertEquals(List.of("sha-512", "sha-256"), new ArrayList<>(members.keySet()));
+        Assertions.assertEquals("X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=", members.get("sha-256"));
+    }
+
+    @Test
+    void testRejectInvalidHeaders() {
+        String[] invalid = {
+                "", " ", "invalid", "sig1", "sig1=", "Sig1=(\"@method\");created=1", "sig1=(\"@method\"\"@path\");created=1",
+                "sig1=(\"@method\";created=1", "sig1=(@method);created=1", "sig1=(\"@method\");created=\"1\"",
+                "sig1=(\"@method\");created=1.5", "sig1=(\"@method\");created=1234567890123456", "sig1=(\"@method\");created=1,",
+                "sig1=(\"@met\\hod\");created=1", "sig1=(\"@method);created=1", "sig1=(\"@method\");created=1 sig2=()",
+                "sig1=(\"café\");created=1", "sig1=(\"@method\");created"
+        };
+        for (String header : invalid) {
+            Assertions.assertThrows(SignatureException.class, () -> StructuredFieldParser.parseSignatureInput(header), header);
+        }
+
+        String[] invalidByteSequences = {"invalid", "sig1=invalid", "sig1=:abc", "sig1=:a b:", "sig1=\"abc\"", "sig1=:abc:,"};
+        for (String header : invalidByteSequences) {
+            Assertions.assertThrows(SignatureException.class, () -> StructuredFieldParser.parseByteSequenceDictionary(header, "Signature"), header);
+        }
+    }
+
+    @Test
+    void testRoundTripRandomSignatureInputs() throws Exception {
+        Random random = new Random(8941);
+        for (int i = 0; i < 5000; i++) {
+            List<GeneratedMember> members = new ArrayList<>();
+            Map<String, GeneratedMember> byLabel = new LinkedHashMap<>();
+            StringBuilder header = new StringBuilder();
+
+            int memberCount = 1 + random.nextInt(3);
+            for (int m = 0; m < memberCount; m++) {
+                GeneratedMember member = randomMember(random);
+                if (m > 0) {
+                    header.append(randomOWS(random)).append(',').append(randomOWS(random));
+                }
+                header.append(member.label).append('=').append(member.value);
+                members.add(member);
+                byLabel.put(member.label, member);
+            }
+
+            List<SignatureInput> parsed = StructuredFieldParser.parseSignatureInput(header.toString());
+
+            Assertions.assertEquals(byLabel.size(), parsed.size(), header.toString());
+            for (SignatureInput signatureInput : parsed) {
+                GeneratedMember expected = byLabel.get(signatureInput.getLabel());
+                Assertions.assertNotNull(expected, header.toString());
+                Assertions.assertEquals(expected.value, signatureInput.getValue());
+                Assertions.assertEquals(expected.names, names(signatureInput));
+                Assertions.assertEquals(expected.parameters, parameters(signatureInput));
+                Assertions.assertEquals(expected.created, signatureInput.getCreated());
+                Assertions.assertEquals(expected.expires, signatureInput.getExpires());
+                Assertions.assertEquals(expected.keyId, signatureInput.getKeyId());
+                Assertions.assertEquals(expected.nonce, signatureInput.getNonce());
+            }
+        }
+    }
+
+    @Test
+    void testRoundTripRandomByteSequenceDictionaries() throws Exception {
+        Random random = new Random(9530);
+        for (int i = 0; i < 5000; i++) {
+            Map<String, String> expected = new LinkedHashMap<>();
+            StringBuilder header = new StringBuilder();
+
+            int memberCount = 1 + random.nextInt(3);
+            for (int m = 0; m < memberCount; m++) {
+                String key = randomKey(random);
+                String value = randomBase64(random);
+                if (m > 0) {
+                    header.append(randomOWS(random)).append(',').append(randomOWS(random));
+                }
+                header.append(key).append("=:").append(value).append(':');
+                if (random.nextInt(4) == 0) {
+                    header.append(";").append(randomKey(random)).append("=?1");
+                }
+                expected.remove(key);
+                expected.put(key, value);
+            }
+
+            Map<String, String> parsed = StructuredFieldParser.parseByteSequenceDictionary(header.toString(), "Signature");
+            Assertions.assertEquals(expected, parsed, header.toString());
+        }
+    }
+
+    @Test
+    void testFuzzMutatedHeadersOnlyThrowSignatureException() {
+        Random random = new Random(20220721);
+        String[] seeds = {
+                "sig1=(\"content-digest\" \"x-ebay-signature-key\" \"@method\" \"@path\" \"@authority\");created=1658440308",
+                "sig-b22=(\"@authority\" \"content-digest\" \"@query-param\";name=\"Pet\");created=1618884473;keyid=\"test-key-rsa-pss\";tag=\"header-example\"",
+                "sig1=:ZMUpAejnqrt6POSx02ltx3cT9YODV2r+Cem/BKOagDSfztKOtCsjP/MxZqmY+FVJ3/8E4BL76T9Fjty8oJnsAw==:",
+                "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:, sha-512=:abc=:;a=1.5;b=?0;c=tok/en;d=\"x\\\"y\""
+        };
+
+        for (int i = 0; i < 50000; i++) {
+            String header = mutate(random, seeds[random.nextInt(seeds.length)]);
+            assertOnlySignatureException(() -> StructuredFieldParser.parseSignatureInput(header), header);
+            assertOnlySignatureException(() -> StructuredFieldParser.parseByteSequenceDictionary(header, "Signature"), header);
+        }
+    }
+
+    private void assertOnlySignatureException(ThrowingRunnable runnable, String header) {
+        try {
+            runnable.run();
+        } catch (SignatureException ex) {
+            // expected for malformed input
+        } catch (Exception ex) {
+            Assertions.fail("Unexpected " + ex + " for header " + header);
+        }
+    }
+
+    private String mutate(Random random, String seed) {
+        StringBuilder buf = new StringBuilder(seed);
+        int mutations = 1 + random.nextInt(4);
+        for (int i = 0; i < mutations; i++) {
+            int position = random.nextInt(buf.length() + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    buf.insert(position, FUZZ_CHARS.charAt(random.nextInt(FUZZ_CHARS.length())));
+                    break;
+                case 1:
+                    if (position < buf.length()) {
+                        buf.deleteCharAt(position);
+                    }
+                    break;
+                case 2:
+                    if (position < buf.length()) {
+                        buf.setCharAt(position, FUZZ_CHARS.charAt(random.nextInt(FUZZ_CHARS.length())));
+                    }
+                    break;
+                default:
+                    buf.setLength(position);
+                    break;
+            }
+        }
+        return buf.toString();
+    }
+
+    private GeneratedMember randomMember(Random random) {
+        GeneratedMember member = new GeneratedMember();
+        member.label = randomKey(random);
+
+        StringBuilder value = new StringBuilder("(");
+        int components = random.nextInt(6);
+        for (int c = 0; c < components; c++) {
+            if (c > 0) {
+                value.append(" ".repeat(1 + random.nextInt(2)));
+            } else if (random.nextInt(4) == 0) {
+                value.append(' ');
+            }
+            String name = randomComponentName(random);
+            value.append(quote(name));
+            member.names.add(name);
+
+            String parameters = "";
+            if (random.nextInt(4) == 0) {
+                parameters = random.nextBoolean() ? ";tr" : ";name=" + quote(randomKey(random));
+            }
+            value.append(parameters);
+            member.parameters.add(parameters);
+        }
+        if (components > 0 && random.nextInt(4) == 0) {
+            value.append(' ');
+        }
+        value.append(')');
+
+        member.created = (long) random.nextInt(Integer.MAX_VALUE);
+        value.append(";created=").append(member.created);
+        if (random.nextBoolean()) {
+            member.expires = member.created + random.nextInt(3600);
+            value.append(";expires=").append(member.expires);
+        }
+        if (random.nextBoolean()) {
+            member.keyId = randomString(random);
+            value.append(";keyid=").append(quote(member.keyId));
+        }
+        if (random.nextBoolean()) {
+            member.nonce = randomString(random);
+            value.append(";nonce=").append(quote(member.nonce));
+        }
+        if (random.nextInt(4) == 0) {
+            value.append(";x-unknown=").append(random.nextBoolean() ? "12.5" : "?1");
+        }
+
+        member.value = value.toString();
+        return member;
+    }
+
+    private String randomKey(Random random) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(KEY_FIRST_CHARS.charAt(random.nextInt(KEY_FIRST_CHARS.length())));
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            buf.append(KEY_CHARS.charAt(random.nextInt(KEY_CHARS.length())));
+        }
+        return buf.toString();
+    }
+
+    private String randomComponentName(Random random) {
+        return (random.nextBoolean() ? "@" : "") + randomKey(random);
+    }
+
+    private String randomString(Random random) {
+        StringBuilder buf = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            buf.append((char) (0x20 + random.nextInt(0x7f - 0x20)));
+        }
+        return buf.toString();
+    }
+
+    private String randomBase64(Random random) {
+        StringBuilder buf = new StringBuilder();
+        int length = random.nextInt(40);
+        for (int i = 0; i < length; i++) {
+            buf.append(BASE64_CHARS.charAt(random.nextInt(BASE64_CHARS.length())));
+        }
+        return buf.toString();
+    }
+
+    private String randomOWS(Random random) {
+        return random.nextBoolean() ? "" : random.nextBoolean() ? " " : "\t ";
+    }
+
+    private String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private List<String> names(SignatureInput signatureInput) {
+        List<String> names = new ArrayList<>();
+        signatureInput.getComponents().forEach(component -> names.add(component.getName()));
+        return names;
+    }
+
+    private List<String> parameters(SignatureInput signatureInput) {
+        List<String> parameters = new ArrayList<>();
+        signatureInput.getComponents().forEach(component -> parameters.add(component.getParameters()));
+        return parameters;
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    private static class GeneratedMember {
+        private String label;
+        private String value;
+        private final List<String> names = new ArrayList<>();
+        private final List<String> parameters = new ArrayList<>();
+        private Long created;
+        private Long expires;
+        private String keyId;
+        private String nonce;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ebay.signaturevalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class VerificationServerTests {
+
+    private static final String BODY = "{\"hello\": \"world\"}";
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private CryptoExecutor cryptoExecutor;
+    private SignatureService signatureService;
+    private VerificationServer server;
+    private URI uri;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeypairService keypairService = new KeypairService("Ed25519");
+        cryptoExecutor = new CryptoExecutor(1, 16);
+        signatureService = new SignatureService(keypairService);
+        VerificationService verificationService = VerificationService.builder(keypairService, cryptoExecutor).build();
+        server = new VerificationServer(verificationService, new InetSocketAddress("localhost", 0), 2);
+        server.start();
+        uri = URI.create("http://localhost:" + server.getPort() + VerificationServer.PATH);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        cryptoExecutor.shutdown();
+    }
+
+    @Test
+    void testSignedPostIsVerified() throws Exception {
+        HttpResponse<String> response = send("POST", uri, BODY, BODY);
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("OK", response.body());
+    }
+
+    @Test
+    void testSignedGetIsVerified() throws Exception {
+        HttpResponse<String> response = send("GET", uri, "", "");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("OK", response.body());
+    }
+
+    @Test
+    void testTamperedBodyIsRejected() throws Exception {
+        HttpResponse<String> response = send("POST", uri, BODY, "{\"hello\": \"there\"}");
+        Assertions.assertEquals(403, response.statusCode());
+        Assertions.assertTrue(response.body().startsWith("Content-Digest value is invalid"), response.body());
+    }
+
+    @Test
+    void testSignatureForAnotherPathIsRejected() throws Exception {
+        URI signedUri = URI.create("http://localhost:" + server.getPort() + "/other");
+        Map<String, List<String>> headers = sign("POST", signedUri, BODY);
+        HttpResponse<String> response = client.send(request("POST", uri, BODY, headers), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(403, response.statusCode());
+    }
+
+    @Test
+    void testUnsupportedMethodAndPath() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(405, response.statusCode());
+
+        response = client.send(HttpRequest.newBuilder(uri.resolve("/verifysignature/other")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void testRequestsOnOneConnection() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            String body = i % 2 == 0 ? BODY : "";
+            Assertions.assertEquals(200, send(i % 2 == 0 ? "POST" : "GET", uri, body, body).statusCode());
+            Assertions.assertEquals(403, send("POST", uri, BODY, "tampered").statusCode());
+        }
+    }
+
+    private HttpResponse<String> send(String method, URI uri, String signedBody, String sentBody) throws Exception {
+        return client.send(request(method, uri, sentBody, sign(method, uri, signedBody)), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Map<String, List<String>> sign(String method, URI uri, String body) throws SignatureException {
+        Map<String, List<String>> headers = new HashMap<>();
+        signatureService.signMessage(SignableMessage.of(method, uri, headers), body.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    private static HttpRequest request(String method, URI uri, String body, Map<String, List<String>> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .method(method, body.isEmpty() ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        headers.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        return builder.build();
+    }
+}
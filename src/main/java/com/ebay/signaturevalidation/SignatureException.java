@@ -1,22 +0,0 @@
-package com.ebay.signaturevalidation;
-
-public class SignatureException extends Exception {
-    public SignatureException() {
-    }
-
-    public SignatureException(String message) {
-        super(message);
-    }
-
-    public SignatureException(String message, Throwable cause) {
-        super(message, cause);
-    }
-
-    public SignatureException(Throwable cause) {
-        super(cause);
-    }
-
-    public SignatureException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
-        super(message, cause, enableSuppression, writableStackTrace);
-    }
-}